@@ -6,6 +6,7 @@ import dev.supersand24.events.EventData;
 import dev.supersand24.expenses.DebtData;
 import dev.supersand24.expenses.ExpenseData;
 import dev.supersand24.expenses.PaymentInfo;
+import dev.supersand24.voice.VoiceChannelData;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.entities.Guild;
@@ -38,27 +39,37 @@ public class ArisannaBot {
         DataStore.register(
                 "paymentMethods",
                 "paymentMethods.json",
-                new TypeToken<ConcurrentHashMap<String, List<PaymentInfo>>>() {}.getType(),
+                new TypeToken<ConcurrentHashMap<Long, List<PaymentInfo>>>() {}.getType(),
                 ConcurrentHashMap::new
         );
 
         DataStore.register(
                 "expenses",
-                "expenses.json",
+                "expenses.bin",
                 new TypeToken<DataPartition<ExpenseData>>() {}.getType(),
-                DataPartition::new
+                DataPartition::new,
+                SnapshotCodec.BINARY
         );
         DataStore.register(
                 "debts",
-                "debts.json",
+                "debts.bin",
                 new TypeToken<DataPartition<DebtData>>() {}.getType(),
-                DataPartition::new
+                DataPartition::new,
+                SnapshotCodec.BINARY
         );
         DataStore.register(
                 "events",
-                "events.json",
+                "events.bin",
                 new TypeToken<DataPartition<EventData>>() {}.getType(),
-                DataPartition::new
+                DataPartition::new,
+                SnapshotCodec.BINARY
+        );
+        DataStore.register(
+                "voiceChannels",
+                "voiceChannels.bin",
+                new TypeToken<DataPartition<VoiceChannelData>>() {}.getType(),
+                DataPartition::new,
+                SnapshotCodec.BINARY
         );
 
         DataStore.initialize(10);
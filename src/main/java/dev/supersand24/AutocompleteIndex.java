@@ -0,0 +1,257 @@
+package dev.supersand24;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggests things by name while a user types an option, like counters, events and expenses.
+ * The managers keep it up to date as they create, rename and delete what it suggests.
+ * <p>
+ * Suggestions are ranked by how often and how recently they were used, where a use counts for half
+ * as much a day later. Since every rank decays at the same pace, their order only changes when
+ * something is used, so everything is kept in rank order and the best suggestions are the first matches.
+ * Uses are only counted while the bot is running.
+ * <p>
+ * Matches have a word starting with each word typed, without regard to case or accents. Every word of
+ * every label is kept in a sorted map, so finding those is a range lookup. Labels that merely contain the
+ * typed letters in order, like "pxe" for "PAX East", are only suggested when there aren't enough of those.
+ * <p>
+ * Reads don't lock; writes are serialized.
+ * @param <K> What is handed back for a suggestion, like a counter name or an event ID.
+ */
+public final class AutocompleteIndex<K> {
+
+    /** Discord doesn't show more choices than this. */
+    public static final int MAX_SUGGESTIONS = 25;
+    /** Discord doesn't accept longer choice names. */
+    private static final int MAX_LABEL_LENGTH = 100;
+
+    private static final double RECENCY_HALF_LIFE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * Past this many words starting with each word typed, walking everything in rank order finds the
+     * best matches sooner than ranking them all.
+     */
+    private static final int MAX_MATCHES_TO_RANK = 256;
+    /** Letters typed in order are only looked for among this many of the best ranked. */
+    private static final int MAX_FUZZY_CANDIDATES = 2_000;
+
+    public record Suggestion<K>(K key, String label) {}
+
+    private static final class Entry<K> {
+        final long seq;
+        final K key;
+        final String label;
+        final String normalized;
+        final String[] words;
+        /** Only changed while the entry is out of the ranked set. */
+        int uses;
+        long lastUsed;
+        double rank;
+
+        Entry(long seq, K key, String label, int uses, long lastUsed) {
+            this.seq = seq;
+            this.key = key;
+            this.label = label.length() > MAX_LABEL_LENGTH ? label.substring(0, MAX_LABEL_LENGTH - 1) + "…" : label;
+            this.words = split(normalize(label));
+            this.normalized = String.join(" ", words);
+            this.uses = uses;
+            this.lastUsed = lastUsed;
+            updateRank();
+        }
+
+        /**
+         * The log of {@code (uses + 1) * 0.5 ^ (age / half life)}, leaving out the part that only depends
+         * on the current time, which is the same for every entry.
+         */
+        void updateRank() {
+            rank = Math.log(uses + 1) / Math.log(2) + lastUsed / RECENCY_HALF_LIFE_MILLIS;
+        }
+    }
+
+    /** Best ranked first, then alphabetically. */
+    private static final Comparator<Entry<?>> BY_RANK = Comparator.<Entry<?>>comparingDouble(entry -> -entry.rank)
+            .thenComparing(entry -> entry.normalized)
+            .thenComparingLong(entry -> entry.seq);
+
+    private final Map<K, Entry<K>> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry<K>> ranked = new ConcurrentSkipListSet<>(BY_RANK);
+    /** Every word of every label, followed by a NUL and the entry's sequence number so equal words don't collide. */
+    private final ConcurrentSkipListMap<String, Entry<K>> words = new ConcurrentSkipListMap<>();
+    private long nextSeq = 0;
+
+    /**
+     * Adds something to suggest, or changes the label of something already suggested. Its uses are kept.
+     * @param lastUsed When it was created or last used, which ranks it before it has been used through a command.
+     */
+    public synchronized void put(K key, String label, long lastUsed) {
+        Entry<K> previous = entries.get(key);
+        Entry<K> entry = previous == null
+                ? new Entry<>(nextSeq++, key, label, 0, lastUsed)
+                : new Entry<>(nextSeq++, key, label, previous.uses, Math.max(previous.lastUsed, lastUsed));
+        if (previous != null) unindex(previous);
+        entries.put(key, entry);
+        ranked.add(entry);
+        for (String word : entry.words)
+            words.put(wordKey(word, entry), entry);
+    }
+
+    public synchronized void remove(K key) {
+        Entry<K> previous = entries.remove(key);
+        if (previous != null) unindex(previous);
+    }
+
+    private void unindex(Entry<K> entry) {
+        ranked.remove(entry);
+        for (String word : entry.words)
+            words.remove(wordKey(word, entry));
+    }
+
+    /**
+     * Ranks something higher in later suggestions, for when a user picked it.
+     */
+    public synchronized void recordUse(K key) {
+        Entry<K> entry = entries.get(key);
+        if (entry == null) return;
+        ranked.remove(entry);
+        entry.uses++;
+        entry.lastUsed = Math.max(entry.lastUsed, System.currentTimeMillis());
+        entry.updateRank();
+        ranked.add(entry);
+    }
+
+    /**
+     * Finds the best suggestions for what the user has typed so far.
+     * @param query What was typed.
+     * @return At most {@link #MAX_SUGGESTIONS} suggestions, best first.
+     */
+    public List<Suggestion<K>> search(String query) {
+        String[] queryWords = split(normalize(query));
+        List<Entry<K>> found = new ArrayList<>(MAX_SUGGESTIONS);
+
+        if (queryWords.length == 0) {
+            for (Entry<K> entry : ranked) {
+                found.add(entry);
+                if (found.size() == MAX_SUGGESTIONS) break;
+            }
+            return toSuggestions(found);
+        }
+
+        findWordMatches(queryWords, found);
+
+        if (found.size() < MAX_SUGGESTIONS) {
+            String letters = String.join("", queryWords);
+            Set<Entry<K>> wordMatches = Collections.newSetFromMap(new IdentityHashMap<>());
+            wordMatches.addAll(found);
+            int candidates = 0;
+            for (Entry<K> entry : ranked) {
+                if (++candidates > MAX_FUZZY_CANDIDATES || found.size() == MAX_SUGGESTIONS) break;
+                if (!wordMatches.contains(entry) && containsInOrder(entry.normalized, letters)) found.add(entry);
+            }
+        }
+
+        return toSuggestions(found);
+    }
+
+    /**
+     * Adds the best entries with a word starting with each of the words typed.
+     */
+    private void findWordMatches(String[] queryWords, List<Entry<K>> found) {
+        // Only the labels with a word starting with the rarest word typed need to be looked through.
+        NavigableMap<String, Entry<K>> narrowest = null;
+        int narrowestSize = MAX_MATCHES_TO_RANK + 1;
+        for (String queryWord : queryWords) {
+            NavigableMap<String, Entry<K>> range = words.subMap(queryWord, true, queryWord + Character.MAX_VALUE, false);
+            int size = countUpTo(range.keySet(), narrowestSize);
+            if (size < narrowestSize) {
+                narrowest = range;
+                narrowestSize = size;
+            }
+        }
+
+        if (narrowest != null) {
+            Set<Entry<K>> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Entry<K> entry : narrowest.values())
+                if (hasWordPrefixes(entry, queryWords)) matches.add(entry);
+            List<Entry<K>> best = new ArrayList<>(matches);
+            best.sort(BY_RANK);
+            found.addAll(best.subList(0, Math.min(best.size(), MAX_SUGGESTIONS)));
+            return;
+        }
+
+        for (Entry<K> entry : ranked) {
+            if (hasWordPrefixes(entry, queryWords)) {
+                found.add(entry);
+                if (found.size() == MAX_SUGGESTIONS) return;
+            }
+        }
+    }
+
+    private static int countUpTo(Collection<?> items, int limit) {
+        int count = 0;
+        for (Iterator<?> it = items.iterator(); it.hasNext() && count < limit; it.next())
+            count++;
+        return count;
+    }
+
+    private static <K> List<Suggestion<K>> toSuggestions(List<Entry<K>> found) {
+        List<Suggestion<K>> suggestions = new ArrayList<>(found.size());
+        for (Entry<K> entry : found)
+            suggestions.add(new Suggestion<>(entry.key, entry.label));
+        return suggestions;
+    }
+
+    private static boolean hasWordPrefixes(Entry<?> entry, String[] queryWords) {
+        for (String queryWord : queryWords) {
+            boolean matched = false;
+            for (String word : entry.words) {
+                if (word.startsWith(queryWord)) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) return false;
+        }
+        return true;
+    }
+
+    private static boolean containsInOrder(String text, String letters) {
+        int at = -1;
+        for (int i = 0; i < letters.length(); i++) {
+            at = text.indexOf(letters.charAt(i), at + 1);
+            if (at < 0) return false;
+        }
+        return true;
+    }
+
+    private static String wordKey(String word, Entry<?> entry) {
+        return word + '\0' + entry.seq;
+    }
+
+    /**
+     * Lower cases text and strips its accents, turning anything that isn't a letter or digit into a space.
+     */
+    private static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            normalized.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ');
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * @return The words of normalized text.
+     */
+    private static String[] split(String normalized) {
+        String stripped = normalized.strip();
+        return stripped.isEmpty() ? new String[0] : stripped.split(" +");
+    }
+
+}
@@ -0,0 +1,63 @@
+package dev.supersand24;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A compact binary encoding of the JSON token stream.
+ * <p>
+ * Every token is a single tag byte followed by its payload. Whole numbers are zig-zag varints,
+ * other numbers are 8 byte doubles, and strings (including property names) go into a string table
+ * the first time they appear, so repeated values like Discord IDs are only written once per file.
+ * <p>
+ * Values can't contain maps that Gson reads on its own, as Gson only knows how to read those from
+ * a text reader. The keyed entries of a partition are read by the DataStore, so that is fine there.
+ */
+public class BinarySnapshotCodec implements SnapshotCodec {
+
+    static final byte[] MAGIC = { 'A', 'R', 'I', 'S' };
+    static final int VERSION = 1;
+
+    static final int BEGIN_OBJECT = 1;
+    static final int END_OBJECT = 2;
+    static final int BEGIN_ARRAY = 3;
+    static final int END_ARRAY = 4;
+    static final int NAME = 5;
+    static final int NAME_REF = 6;
+    static final int STRING = 7;
+    static final int STRING_REF = 8;
+    static final int LONG = 9;
+    static final int DOUBLE = 10;
+    static final int NUMBER = 11;
+    static final int TRUE = 12;
+    static final int FALSE = 13;
+    static final int NULL = 14;
+
+    @Override
+    public JsonWriter newWriter(OutputStream out) throws IOException {
+        return new BinarySnapshotWriter(new BufferedOutputStream(out));
+    }
+
+    @Override
+    public JsonReader newReader(InputStream in) throws IOException {
+        return new BinarySnapshotReader(new BufferedInputStream(in));
+    }
+
+    /**
+     * Checks whether a stream starts with a binary snapshot header without consuming it.
+     */
+    static boolean hasMagic(BufferedInputStream in) throws IOException {
+        in.mark(MAGIC.length);
+        byte[] header = in.readNBytes(MAGIC.length);
+        in.reset();
+        return Arrays.equals(header, MAGIC);
+    }
+
+}
@@ -0,0 +1,263 @@
+package dev.supersand24;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static dev.supersand24.BinarySnapshotCodec.*;
+
+/**
+ * Reads a {@link BinarySnapshotCodec} snapshot back as the token stream Gson expects.
+ * Numbers and strings convert into each other the same way they do in a JSON text reader.
+ * <p>
+ * Anything wrong with the snapshot, like it being cut off, is reported as an {@link IOException},
+ * so the store falls back to an older generation.
+ */
+class BinarySnapshotReader extends JsonReader {
+
+    private static final int NOT_PEEKED = -2;
+    private static final int END_OF_INPUT = -1;
+
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<>();
+
+    private int peekedTag = NOT_PEEKED;
+
+    BinarySnapshotReader(InputStream in) throws IOException {
+        super(Reader.nullReader());
+        this.in = new DataInputStream(in);
+
+        byte[] header = this.in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(header, MAGIC)) throw new MalformedJsonException("Not a binary snapshot.");
+        int version = this.in.read();
+        if (version != VERSION) throw new MalformedJsonException("Unsupported binary snapshot version " + version + ".");
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        return switch (peekTag()) {
+            case BEGIN_OBJECT -> JsonToken.BEGIN_OBJECT;
+            case END_OBJECT -> JsonToken.END_OBJECT;
+            case BEGIN_ARRAY -> JsonToken.BEGIN_ARRAY;
+            case END_ARRAY -> JsonToken.END_ARRAY;
+            case NAME, NAME_REF -> JsonToken.NAME;
+            case STRING, STRING_REF -> JsonToken.STRING;
+            case LONG, DOUBLE, NUMBER -> JsonToken.NUMBER;
+            case TRUE, FALSE -> JsonToken.BOOLEAN;
+            case NULL -> JsonToken.NULL;
+            case END_OF_INPUT -> JsonToken.END_DOCUMENT;
+            default -> throw new MalformedJsonException("Unknown tag " + peekedTag + " in binary snapshot.");
+        };
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        expect(BEGIN_OBJECT, JsonToken.BEGIN_OBJECT);
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        expect(END_OBJECT, JsonToken.END_OBJECT);
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        expect(BEGIN_ARRAY, JsonToken.BEGIN_ARRAY);
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        expect(END_ARRAY, JsonToken.END_ARRAY);
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        int tag = peekTag();
+        return tag != END_OBJECT && tag != END_ARRAY && tag != END_OF_INPUT;
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        int tag = peekTag();
+        if (tag != NAME && tag != NAME_REF) throw unexpected(JsonToken.NAME);
+        return readString(consume());
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        return switch (peekTag()) {
+            case STRING, STRING_REF, NUMBER -> readString(consume());
+            case LONG -> Long.toString(takeLong());
+            case DOUBLE -> Double.toString(takeDouble());
+            default -> throw unexpected(JsonToken.STRING);
+        };
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        return switch (peekTag()) {
+            case TRUE -> { consume(); yield true; }
+            case FALSE -> { consume(); yield false; }
+            default -> throw unexpected(JsonToken.BOOLEAN);
+        };
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        expect(NULL, JsonToken.NULL);
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        return switch (peekTag()) {
+            case LONG -> takeLong();
+            case DOUBLE -> takeDouble();
+            case STRING, STRING_REF, NUMBER -> parseDouble(readString(consume()));
+            default -> throw unexpected(JsonToken.NUMBER);
+        };
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        return switch (peekTag()) {
+            case LONG -> takeLong();
+            case DOUBLE -> exactLong(takeDouble());
+            case STRING, STRING_REF, NUMBER -> {
+                String text = readString(consume());
+                try {
+                    yield Long.parseLong(text);
+                } catch (NumberFormatException e) {
+                    yield exactLong(parseDouble(text));
+                }
+            }
+            default -> throw unexpected(JsonToken.NUMBER);
+        };
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if (value != (int) value) throw new MalformedJsonException("Expected an int but was " + value);
+        return (int) value;
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            int tag = consume();
+            switch (tag) {
+                case BEGIN_OBJECT, BEGIN_ARRAY -> depth++;
+                case END_OBJECT, END_ARRAY -> depth--;
+                case NAME, NAME_REF, STRING, STRING_REF, NUMBER -> readString(tag);
+                case LONG -> readVarLong();
+                case DOUBLE -> in.readDouble();
+                case END_OF_INPUT -> throw new EOFException("End of input while skipping a value.");
+                default -> { }
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    @Override
+    public String toString() {
+        return "BinarySnapshotReader";
+    }
+
+    private int peekTag() throws IOException {
+        if (peekedTag == NOT_PEEKED) peekedTag = in.read();
+        return peekedTag;
+    }
+
+    private int consume() throws IOException {
+        int tag = peekTag();
+        peekedTag = NOT_PEEKED;
+        return tag;
+    }
+
+    private void expect(int tag, JsonToken token) throws IOException {
+        if (peekTag() != tag) throw unexpected(token);
+        consume();
+    }
+
+    private MalformedJsonException unexpected(JsonToken expected) throws IOException {
+        return new MalformedJsonException("Expected " + expected + " but was " + peek() + " in binary snapshot.");
+    }
+
+    /**
+     * Reads the payload of a string tag that was just consumed, adding new strings to the string table.
+     */
+    private String readString(int tag) throws IOException {
+        if (tag == NAME_REF || tag == STRING_REF) {
+            long index = readVarLong();
+            if (index >= strings.size()) throw new MalformedJsonException("String reference " + index + " is out of range.");
+            return strings.get((int) index);
+        }
+
+        long length = readVarLong();
+        if (length > Integer.MAX_VALUE) throw new MalformedJsonException("String of " + length + " bytes is too long.");
+        byte[] bytes = in.readNBytes((int) length);
+        if (bytes.length != length) throw new EOFException("End of input inside a string.");
+
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if (tag != NUMBER) strings.add(value);
+        return value;
+    }
+
+    /**
+     * Consumes a whole number tag and reads its payload.
+     */
+    private long takeLong() throws IOException {
+        consume();
+        long zigZag = readVarLong();
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    /**
+     * Consumes a floating point tag and reads its payload.
+     */
+    private double takeDouble() throws IOException {
+        consume();
+        return in.readDouble();
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("End of input inside a number.");
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new MalformedJsonException("Number in binary snapshot is too long.");
+    }
+
+    private static double parseDouble(String text) throws MalformedJsonException {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new MalformedJsonException("Expected a number but was " + text, e);
+        }
+    }
+
+    private static long exactLong(double value) throws MalformedJsonException {
+        long result = (long) value;
+        if (result != value) throw new MalformedJsonException("Expected a long but was " + value);
+        return result;
+    }
+
+}
@@ -0,0 +1,190 @@
+package dev.supersand24;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static dev.supersand24.BinarySnapshotCodec.*;
+
+/**
+ * Writes the token stream Gson produces in the {@link BinarySnapshotCodec} format.
+ */
+class BinarySnapshotWriter extends JsonWriter {
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    /** Like JsonWriter, names are held back until we know whether their value is skipped as null. */
+    private String deferredName;
+
+    BinarySnapshotWriter(OutputStream out) throws IOException {
+        super(Writer.nullWriter());
+        this.out = new DataOutputStream(out);
+        this.out.write(MAGIC);
+        this.out.write(VERSION);
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        writeDeferredName();
+        out.write(BEGIN_OBJECT);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        out.write(END_OBJECT);
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        writeDeferredName();
+        out.write(BEGIN_ARRAY);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        out.write(END_ARRAY);
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) {
+        Objects.requireNonNull(name, "name == null");
+        if (deferredName != null) throw new IllegalStateException("Name " + deferredName + " has no value.");
+        deferredName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) return nullValue();
+        writeDeferredName();
+        writeString(STRING, STRING_REF, value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) {
+        throw new UnsupportedOperationException("Raw JSON can't be written to a binary snapshot.");
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (deferredName != null && !getSerializeNulls()) {
+            // Skip the name and the value together, just like Gson does for text.
+            deferredName = null;
+            return this;
+        }
+        writeDeferredName();
+        out.write(NULL);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        writeDeferredName();
+        out.write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        return value == null ? nullValue() : value(value.booleanValue());
+    }
+
+    @Override
+    public JsonWriter value(float value) throws IOException {
+        return value((double) value);
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        writeDeferredName();
+        out.write(DOUBLE);
+        out.writeDouble(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        writeDeferredName();
+        out.write(LONG);
+        writeVarLong((value << 1) ^ (value >> 63));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) return nullValue();
+
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof AtomicInteger || value instanceof AtomicLong)
+            return value(value.longValue());
+        if (value instanceof Double || value instanceof Float)
+            return value(value.doubleValue());
+
+        // BigDecimal, BigInteger and Gson's lazily parsed numbers keep their exact text.
+        writeDeferredName();
+        writeLiteral(NUMBER, value.toString());
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeDeferredName() throws IOException {
+        if (deferredName == null) return;
+        writeString(NAME, NAME_REF, deferredName);
+        deferredName = null;
+    }
+
+    /**
+     * Writes a string the first time it is seen and a reference to the string table every time after that.
+     */
+    private void writeString(int literalTag, int referenceTag, String value) throws IOException {
+        Integer index = strings.get(value);
+        if (index != null) {
+            out.write(referenceTag);
+            writeVarLong(index);
+            return;
+        }
+
+        writeLiteral(literalTag, value);
+        strings.put(value, strings.size());
+    }
+
+    private void writeLiteral(int tag, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(tag);
+        writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+}
@@ -0,0 +1,117 @@
+package dev.supersand24;
+
+import java.util.Arrays;
+
+/**
+ * A component or modal ID in the form {@code command:action:arg:arg...}, like {@code expense:list-next:1234:all:2:...}.
+ * The command is the name of the {@link ICommand} the component belongs to.
+ * <p>
+ * Parsing an ID takes one pass that only records where each part starts. Arguments are read straight
+ * from the ID when asked for, so reading a number doesn't create a substring first.
+ */
+public final class ComponentId {
+
+    public static final char SEPARATOR = ':';
+    /** Discord doesn't accept longer custom IDs. */
+    public static final int MAX_LENGTH = 100;
+
+    private final String raw;
+    /** Where each part starts, followed by where a part after the last one would start. */
+    private final int[] starts;
+    private final int parts;
+
+    private ComponentId(String raw, int[] starts, int parts) {
+        this.raw = raw;
+        this.starts = starts;
+        this.parts = parts;
+    }
+
+    public static ComponentId parse(String raw) {
+        int[] starts = new int[8];
+        int parts = 0;
+        starts[parts++] = 0;
+        for (int i = raw.indexOf(SEPARATOR); i >= 0; i = raw.indexOf(SEPARATOR, i + 1)) {
+            if (parts == starts.length - 1) starts = Arrays.copyOf(starts, starts.length * 2);
+            starts[parts++] = i + 1;
+        }
+        starts[parts] = raw.length() + 1;
+        return new ComponentId(raw, starts, parts);
+    }
+
+    /**
+     * Builds an ID from its parts.
+     * @throws IllegalArgumentException If an argument contains the separator, or the ID would be too long for Discord.
+     */
+    public static String of(String command, String action, Object... args) {
+        StringBuilder id = new StringBuilder(command).append(SEPARATOR).append(action);
+        for (Object arg : args) {
+            String text = String.valueOf(arg);
+            if (text.indexOf(SEPARATOR) >= 0) throw new IllegalArgumentException("Argument contains a separator: " + text);
+            id.append(SEPARATOR).append(text);
+        }
+        if (id.length() > MAX_LENGTH) throw new IllegalArgumentException("Component ID is too long: " + id);
+        return id.toString();
+    }
+
+    public String getCommand() {
+        return part(0);
+    }
+
+    public String getAction() {
+        return parts > 1 ? part(1) : "";
+    }
+
+    /**
+     * @return The command and action, which is what routes are registered under.
+     */
+    public String getRoute() {
+        return parts > 1 ? raw.substring(0, end(1)) : raw;
+    }
+
+    /**
+     * @return How many arguments follow the command and action.
+     */
+    public int getArgCount() {
+        return Math.max(parts - 2, 0);
+    }
+
+    public String getString(int arg) {
+        return part(checkArg(arg));
+    }
+
+    /**
+     * @throws NumberFormatException If the argument is not a whole number.
+     */
+    public int getInt(int arg) {
+        int part = checkArg(arg);
+        return Integer.parseInt(raw, starts[part], end(part), 10);
+    }
+
+    /**
+     * @throws NumberFormatException If the argument is not a whole number.
+     */
+    public long getLong(int arg) {
+        int part = checkArg(arg);
+        return Long.parseLong(raw, starts[part], end(part), 10);
+    }
+
+    private int checkArg(int arg) {
+        if (arg < 0 || arg >= getArgCount())
+            throw new IndexOutOfBoundsException("Argument " + arg + " of " + getArgCount() + " in " + raw);
+        return arg + 2;
+    }
+
+    private String part(int part) {
+        return raw.substring(starts[part], end(part));
+    }
+
+    private int end(int part) {
+        return starts[part + 1] - 1;
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+
+}
@@ -0,0 +1,171 @@
+package dev.supersand24;
+
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends component and modal interactions to the handler registered for their {@link ComponentId}'s command and action.
+ * Commands register their routes once, so handling an interaction is one parse and one table lookup.
+ * Routed handlers run on the {@link InteractionDispatcher}.
+ */
+public final class ComponentRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ComponentRouter.class);
+
+    @FunctionalInterface
+    public interface Handler<E> {
+        void handle(E event, ComponentId id);
+    }
+
+    /**
+     * A registered handler, along with what an ID needs to look like to reach it.
+     */
+    public static final class Route<E> {
+
+        private final Handler<E> handler;
+        private int minArgs = 0;
+        private boolean forAuthor = false;
+        private int orderingArg = -1;
+        private boolean autoDefer = true;
+
+        private Route(Handler<E> handler) {
+            this.handler = handler;
+        }
+
+        /**
+         * Only lets the user whose ID is the first argument use the component. Anyone else is told so.
+         */
+        public Route<E> forAuthor() {
+            forAuthor = true;
+            minArgs = Math.max(minArgs, 1);
+            return this;
+        }
+
+        /**
+         * Rejects IDs with fewer arguments, so the handler can read them without checking.
+         */
+        public Route<E> args(int count) {
+            minArgs = Math.max(minArgs, count);
+            return this;
+        }
+
+        /**
+         * Never defers the interaction for a slow handler, for handlers that answer with a modal,
+         * which has to be the first answer.
+         */
+        public Route<E> opensModal() {
+            autoDefer = false;
+            return this;
+        }
+
+        /**
+         * Orders interactions by the entity in an argument instead of by user, for components that
+         * several people can use on the same thing, like the control panel of a voice channel.
+         */
+        public Route<E> orderedBy(int arg) {
+            orderingArg = arg;
+            minArgs = Math.max(minArgs, arg + 1);
+            return this;
+        }
+
+    }
+
+    private final InteractionDispatcher dispatcher;
+
+    private final Map<String, Route<ButtonInteractionEvent>> buttons = new ConcurrentHashMap<>();
+    private final Map<String, Route<StringSelectInteractionEvent>> stringSelects = new ConcurrentHashMap<>();
+    private final Map<String, Route<EntitySelectInteractionEvent>> entitySelects = new ConcurrentHashMap<>();
+    private final Map<String, Route<ModalInteractionEvent>> modals = new ConcurrentHashMap<>();
+    /** Prefixes of IDs sent before every ID started with a command, mapped to the route they belong to now. */
+    private final Map<String, String> legacyPrefixes = new ConcurrentHashMap<>();
+
+    public ComponentRouter(InteractionDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public Route<ButtonInteractionEvent> button(String command, String action, Handler<ButtonInteractionEvent> handler) {
+        return register(buttons, command, action, handler);
+    }
+
+    public Route<StringSelectInteractionEvent> stringSelect(String command, String action, Handler<StringSelectInteractionEvent> handler) {
+        return register(stringSelects, command, action, handler);
+    }
+
+    public Route<EntitySelectInteractionEvent> entitySelect(String command, String action, Handler<EntitySelectInteractionEvent> handler) {
+        return register(entitySelects, command, action, handler);
+    }
+
+    public Route<ModalInteractionEvent> modal(String command, String action, Handler<ModalInteractionEvent> handler) {
+        return register(modals, command, action, handler);
+    }
+
+    private static <E> Route<E> register(Map<String, Route<E>> routes, String command, String action, Handler<E> handler) {
+        Route<E> route = new Route<>(handler);
+        routes.put(command + ComponentId.SEPARATOR + action, route);
+        return route;
+    }
+
+    /**
+     * Keeps components on messages that were sent before their ID changed working, like role buttons
+     * that stay pinned in a channel. An ID starting with the prefix is routed as if the prefix were
+     * the command and action, with the rest of the ID as its arguments.
+     */
+    public void legacy(String prefix, String command, String action) {
+        legacyPrefixes.put(prefix, command + ComponentId.SEPARATOR + action);
+    }
+
+    public void dispatch(ButtonInteractionEvent e) {
+        dispatch(buttons, e, e.getComponentId());
+    }
+
+    public void dispatch(StringSelectInteractionEvent e) {
+        dispatch(stringSelects, e, e.getComponentId());
+    }
+
+    public void dispatch(EntitySelectInteractionEvent e) {
+        dispatch(entitySelects, e, e.getComponentId());
+    }
+
+    public void dispatch(ModalInteractionEvent e) {
+        dispatch(modals, e, e.getModalId());
+    }
+
+    private <E extends GenericInteractionCreateEvent & IReplyCallback> void dispatch(Map<String, Route<E>> routes, E event, String rawId) {
+        ComponentId id = ComponentId.parse(rawId);
+        Route<E> route = routes.get(id.getRoute());
+
+        if (route == null) {
+            String legacyRoute = legacyPrefixes.get(id.getCommand());
+            if (legacyRoute != null) {
+                id = ComponentId.parse(legacyRoute + rawId.substring(id.getCommand().length()));
+                route = routes.get(legacyRoute);
+            }
+        }
+
+        if (route == null || id.getArgCount() < route.minArgs) {
+            log.warn("No route for {}.", rawId);
+            event.reply("Something went wrong!").setEphemeral(true).queue();
+            return;
+        }
+
+        if (route.forAuthor && !event.getUser().getId().equals(id.getString(0))) {
+            event.reply("You cannot use these buttons.").setEphemeral(true).queue();
+            return;
+        }
+
+        Object orderingKey = route.orderingArg < 0 ? event.getUser().getIdLong() : id.getCommand() + ComponentId.SEPARATOR + id.getString(route.orderingArg);
+        ComponentId routedId = id;
+        Route<E> routed = route;
+        dispatcher.submit(id.getCommand(), orderingKey, event, route.autoDefer, () -> routed.handler.handle(event, routedId));
+    }
+
+}
@@ -1,14 +1,208 @@
 package dev.supersand24;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
+import java.util.Currency;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CurrencyUtils {
 
-    public static String formatAsUSD(double amount) {
-        NumberFormat formatter = NumberFormat.getCurrencyInstance(Locale.US);
+    private static final Map<String, MoneyFormat> formats = new ConcurrentHashMap<>();
+
+    /** The format amounts are shown in when nothing else is chosen. */
+    public static final MoneyFormat USD = getFormat(Currency.getInstance("USD"), Locale.US);
+
+    public static String formatCentsAsUSD(long cents) {
+        return USD.format(cents);
+    }
+
+    /**
+     * Gets the format for a currency as it is written in a locale, like EUR in Germany ("1.234,50 €").
+     * Formats are built once and shared, they are safe to use from any thread.
+     */
+    public static MoneyFormat getFormat(Currency currency, Locale locale) {
+        return formats.computeIfAbsent(currency.getCurrencyCode() + "_" + locale.toLanguageTag(), key -> new MoneyFormat(currency, locale));
+    }
+
+    /**
+     * Converts an amount in dollars to whole cents, rounding half a cent up.
+     */
+    public static long toCents(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Parses an amount typed by a user, like "12.50", "$12.50" or "1,200", into whole cents.
+     * @throws NumberFormatException If the text is not an amount of money.
+     */
+    public static long parseCents(String text) {
+        return USD.parse(text);
+    }
+
+    /**
+     * Splits an amount into shares that add up to exactly the amount.
+     * When it doesn't divide evenly, the leftover cents go to the first shares, one each.
+     * @param cents The amount to split.
+     * @param parts How many shares to split it into.
+     * @return The shares, largest first.
+     */
+    public static long[] splitCents(long cents, int parts) {
+        long[] shares = new long[parts];
+        long base = Math.floorDiv(cents, parts);
+        long remainder = Math.floorMod(cents, parts);
+        for (int i = 0; i < parts; i++)
+            shares[i] = base + (i < remainder ? 1 : 0);
+        return shares;
+    }
+
+    /**
+     * Writes and reads amounts of one currency, in whole minor units like cents, or yen for currencies without any.
+     * <p>
+     * The symbols, separators and sign placement are taken from the JDK's currency format once. Formatting then
+     * only appends digits, so it doesn't need a {@link NumberFormat}, which can't be shared between threads.
+     */
+    public static final class MoneyFormat {
+
+        private final Currency currency;
+        private final Locale locale;
+        private final String positivePrefix;
+        private final String positiveSuffix;
+        private final String negativePrefix;
+        private final String negativeSuffix;
+        private final char decimalSeparator;
+        private final char groupingSeparator;
+        private final char zeroDigit;
+        /** How many digits go between grouping separators, or 0 when the locale doesn't group. */
+        private final int groupingSize;
+        private final int fractionDigits;
+
+        private MoneyFormat(Currency currency, Locale locale) {
+            DecimalFormat format = (DecimalFormat) NumberFormat.getCurrencyInstance(locale);
+            format.setCurrency(currency);
+            DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+
+            this.currency = currency;
+            this.locale = locale;
+            this.positivePrefix = format.getPositivePrefix();
+            this.positiveSuffix = format.getPositiveSuffix();
+            this.negativePrefix = format.getNegativePrefix();
+            this.negativeSuffix = format.getNegativeSuffix();
+            this.decimalSeparator = symbols.getMonetaryDecimalSeparator();
+            this.groupingSeparator = symbols.getMonetaryGroupingSeparator();
+            this.zeroDigit = symbols.getZeroDigit();
+            this.groupingSize = format.isGroupingUsed() ? format.getGroupingSize() : 0;
+            this.fractionDigits = Math.max(currency.getDefaultFractionDigits(), 0);
+        }
+
+        public Currency getCurrency() {
+            return currency;
+        }
+
+        public Locale getLocale() {
+            return locale;
+        }
+
+        /**
+         * @return How many minor units make up one major unit, like 100 cents in a dollar.
+         */
+        public long getMinorUnitsPerUnit() {
+            return BigDecimal.ONE.scaleByPowerOfTen(fractionDigits).longValueExact();
+        }
+
+        /**
+         * Formats an amount the same way the JDK's currency format for this currency and locale would.
+         * @param minorUnits The amount in minor units, like cents.
+         */
+        public String format(long minorUnits) {
+            // Digits are collected from the right, working with the negative amount so Long.MIN_VALUE fits.
+            char[] digits = new char[20];
+            int count = 0;
+            for (long rest = minorUnits > 0 ? -minorUnits : minorUnits; rest != 0 || count <= fractionDigits; rest /= 10)
+                digits[count++] = (char) (zeroDigit - rest % 10);
+
+            boolean negative = minorUnits < 0;
+            String prefix = negative ? negativePrefix : positivePrefix;
+            String suffix = negative ? negativeSuffix : positiveSuffix;
+            StringBuilder result = new StringBuilder(prefix.length() + count + count / 3 + 1 + suffix.length());
+
+            result.append(prefix);
+            for (int i = count - 1; i >= fractionDigits; i--) {
+                result.append(digits[i]);
+                int remaining = i - fractionDigits;
+                if (groupingSize > 0 && remaining > 0 && remaining % groupingSize == 0) result.append(groupingSeparator);
+            }
+            if (fractionDigits > 0) {
+                result.append(decimalSeparator);
+                for (int i = fractionDigits - 1; i >= 0; i--)
+                    result.append(digits[i]);
+            }
+            return result.append(suffix).toString();
+        }
+
+        /**
+         * Parses an amount typed by a user, like "12.50", "$12.50" or "1,200" for US dollars, into minor units.
+         * The currency's symbol and code may be left out, and the amount is rounded half up to whole minor units.
+         * <p>
+         * Grouping separators are only accepted between full groups of digits before the decimal separator.
+         * Otherwise they were most likely meant as the decimal separator of another locale, like "12.50" typed
+         * for euros written the German way, so the amount is refused instead of read a hundred times too large.
+         * @throws NumberFormatException If the text is not an amount of money.
+         */
+        public long parse(String text) {
+            String stripped = text.replace(currency.getSymbol(locale), "").replace(currency.getCurrencyCode(), "");
+
+            // Separators become plain ASCII, while spaces and the direction marks some locales add are dropped.
+            StringBuilder cleaned = new StringBuilder(stripped.length());
+            boolean grouped = false;
+            boolean fraction = false;
+            int groupDigits = 0;
+            for (int i = 0; i < stripped.length(); i++) {
+                char c = stripped.charAt(i);
+                if (c == groupingSeparator) {
+                    boolean fullGroup = grouped ? groupDigits == groupingSize : groupDigits > 0 && groupDigits <= groupingSize;
+                    if (groupingSize == 0 || fraction || !fullGroup) throw ambiguous(text);
+                    grouped = true;
+                    groupDigits = 0;
+                    continue;
+                }
+                if (Character.isSpaceChar(c) || Character.isWhitespace(c) || Character.getType(c) == Character.FORMAT)
+                    continue;
+                if (c == decimalSeparator) {
+                    if (grouped && groupDigits != groupingSize) throw ambiguous(text);
+                    fraction = true;
+                    cleaned.append('.');
+                } else if (c >= zeroDigit && c <= zeroDigit + 9) {
+                    cleaned.append((char) ('0' + c - zeroDigit));
+                    groupDigits++;
+                } else {
+                    cleaned.append(c);
+                }
+            }
+            if (grouped && !fraction && groupDigits != groupingSize) throw ambiguous(text);
+
+            try {
+                return new BigDecimal(cleaned.toString()).setScale(fractionDigits, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            } catch (ArithmeticException e) {
+                throw new NumberFormatException("Amount is out of range: " + text);
+            }
+        }
+
+        private NumberFormatException ambiguous(String text) {
+            return new NumberFormatException("Misplaced '" + groupingSeparator + "' in " + text + ", amounts are written like " + format(123456));
+        }
+
+        /**
+         * Converts an amount in major units, like dollars from a number option, to whole minor units, rounding half up.
+         */
+        public long toMinorUnits(double amount) {
+            return BigDecimal.valueOf(amount).setScale(fractionDigits, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
 
-        return formatter.format(amount);
     }
 
 }
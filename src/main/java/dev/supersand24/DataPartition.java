@@ -1,42 +1,73 @@
 package dev.supersand24;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DataPartition<T extends IData> {
 
-    private long nextId = 1;
+    private final AtomicLong nextId = new AtomicLong(1);
 
-    private Map<Long, T> data = new ConcurrentHashMap<>();
+    private LongMap<T> data = new LongMap<>();
 
     /**
      * Returns the map containing the data.
      * A manager class will use this to read and modify the data.
+     * Looking an item up by a primitive long ID doesn't box the key.
      * @return The map of data objects.
      */
-    public Map<Long, T> getData() {
+    public LongMap<T> getData() {
         return data;
     }
 
     /**
      * Atomically gets the next available ID for a new item and increments the
-     * internal counter for the next use. The 'synchronized' keyword ensures this
-     * method is thread-safe.
+     * internal counter for the next use. It never blocks, so it is safe to call from any thread.
      *
      * @return A new, unique ID.
      */
-    public synchronized long getAndIncrementId() {
-        return nextId++;
+    public long getAndIncrementId() {
+        return nextId.getAndIncrement();
+    }
+
+    /**
+     * Atomically takes a block of consecutive IDs for creating several items at once.
+     * Use {@link DataStore#reserveIds(String, int)} instead, which also journals the reservation,
+     * so the IDs can't be handed out again after a crash.
+     *
+     * @param count How many IDs to take.
+     * @return The first ID of the block.
+     */
+    long reserveIds(int count) {
+        return nextId.getAndAdd(count);
+    }
+
+    /**
+     * @return The ID the next new item will receive, without reserving it.
+     */
+    public long getNextId() {
+        return nextId.get();
+    }
+
+    /**
+     * Makes sure an ID that is already in use will never be handed out again.
+     * Used when entries are restored from the journal after the snapshot was loaded.
+     *
+     * @param usedId An ID that belongs to an existing item.
+     */
+    public void advanceNextId(long usedId) {
+        nextId.accumulateAndGet(usedId + 1, Math::max);
     }
 
     /**
      * A method that can be called after this object is loaded from JSON.
-     * It iterates through its own data and sets the transient ID on each child object.
+     * It iterates through its own data, sets the transient ID on each child object and lets it upgrade older data.
      * This makes the partition responsible for its own data integrity.
      */
     public void performPostLoadActions() {
         if (data != null) {
-            data.forEach((id, item) -> item.setId(id));
+            data.forEachEntry((id, item) -> {
+                item.setId(id);
+                item.afterLoad();
+            });
         }
     }
 }
@@ -1,49 +1,227 @@
 package dev.supersand24;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 public class DataStore {
 
     private static final Logger log = LoggerFactory.getLogger(DataStore.class);
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private static final Gson gson = new Gson();
     private static final Map<String, Partition<?>> partitions = new ConcurrentHashMap<>();
 
     private static final Path DATA_DIRECTORY = Paths.get("data");
 
+    /**
+     * How many journal records a partition may accumulate before the auto-save
+     * folds them back into a fresh snapshot.
+     */
+    private static final int COMPACTION_THRESHOLD = 500;
+
+    /**
+     * How many previous snapshots are kept next to the live one (e.g. "expenses.json.1").
+     * If the newest snapshot can't be read, loading falls back to the next valid generation.
+     */
+    private static final int SNAPSHOT_GENERATIONS = 3;
+
+    /**
+     * How long a partition waits after its first unsaved change before writing a snapshot.
+     * Every change made in the meantime is absorbed into that same write.
+     */
+    private static volatile int saveDelaySeconds;
+
     private static class Partition<T> {
+        final String name;
         final Path filePath;
+        final Path legacyFilePath;
+        final SnapshotCodec codec;
+        final Path journalPath;
+        final Path compactingJournalPath;
+        final Path tempPath;
         final Type type;
-        volatile boolean dirty = false;
+        final Type keyType;
+        final Type valueType;
+        final Supplier<T> defaultSupplier;
         T data;
 
-        Partition(Path filePath, Type type, Supplier<T> defaultSupplier) {
+        /**
+         * Guards the journal. A lock rather than the partition's monitor, because it is held across file writes
+         * and a virtual thread blocked in those would otherwise pin its carrier.
+         */
+        final ReentrantLock journalLock = new ReentrantLock();
+        BufferedWriter journal;
+        volatile int journalEntries = 0;
+
+        /** Bumped on every change, so a save knows exactly which changes its snapshot contains. */
+        final AtomicLong version = new AtomicLong();
+        /** The newest change that needs the whole partition rewritten instead of journaled. */
+        final AtomicLong dirtyVersion = new AtomicLong();
+        /** The newest change contained in a snapshot on disk. */
+        volatile long savedVersion = 0;
+
+        /** Each partition saves on its own thread, so a slow partition never holds up the others. */
+        ScheduledThreadPoolExecutor lane;
+        final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+        final LongAdder saves = new LongAdder();
+        final LongAdder failedSaves = new LongAdder();
+        final LongAdder totalFlushNanos = new LongAdder();
+        volatile long lastFlushNanos = 0;
+        volatile long maxFlushNanos = 0;
+
+        Partition(String name, Path filePath, Type type, Supplier<T> defaultSupplier, SnapshotCodec codec) {
+            this.name = name;
             this.filePath = filePath;
+            this.codec = codec;
+            this.journalPath = liveJournalPath(filePath);
+            this.compactingJournalPath = compactingJournalPath(filePath);
+            this.tempPath = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+
+            // Partitions that moved away from a ".json" file pick up their old data from it the first time they load.
+            String fileName = filePath.getFileName().toString();
+            int extension = fileName.lastIndexOf('.');
+            this.legacyFilePath = extension > 0 && !fileName.endsWith(".json")
+                    ? filePath.resolveSibling(fileName.substring(0, extension) + ".json")
+                    : null;
             this.type = type;
+            this.defaultSupplier = defaultSupplier;
             this.data = defaultSupplier.get();
+
+            // Work out the key and value types so journal records can be replayed one entry at a time.
+            Type key = null, value = null;
+            if (type instanceof ParameterizedType parameterized) {
+                Type[] arguments = parameterized.getActualTypeArguments();
+                if (parameterized.getRawType() == DataPartition.class) {
+                    key = Long.class;
+                    value = arguments[0];
+                } else if (arguments.length == 2) {
+                    key = arguments[0];
+                    value = arguments[1];
+                }
+            }
+            this.keyType = key;
+            this.valueType = value;
+        }
+
+        /**
+         * @return The keyed entries backing this partition, or null if it is not a keyed collection.
+         */
+        Map<Object, Object> entries() {
+            return entriesOf(data);
+        }
+
+        boolean isJournaled() {
+            return keyType != null && entries() != null;
+        }
+
+        /**
+         * Records a change that the journal can't describe, so the next save rewrites the whole partition.
+         */
+        void markFullSave() {
+            dirtyVersion.accumulateAndGet(version.incrementAndGet(), Math::max);
+        }
+
+        boolean isDirty() {
+            return dirtyVersion.get() > savedVersion;
+        }
+
+        /**
+         * @return The snapshot file of a generation, where generation 0 is the live file.
+         */
+        Path snapshotPath(int generation) {
+            return snapshotPath(filePath, generation);
+        }
+
+        /**
+         * @return The journal holding the changes made between a generation's snapshot and the next newer one.
+         */
+        Path journalPath(int generation) {
+            return journalPath(filePath, generation);
+        }
+
+        static Path snapshotPath(Path filePath, int generation) {
+            return generation == 0 ? filePath : filePath.resolveSibling(filePath.getFileName() + "." + generation);
+        }
+
+        static Path journalPath(Path filePath, int generation) {
+            return filePath.resolveSibling(filePath.getFileName() + ".journal." + generation);
+        }
+
+        static Path liveJournalPath(Path filePath) {
+            return filePath.resolveSibling(filePath.getFileName() + ".journal");
+        }
+
+        static Path compactingJournalPath(Path filePath) {
+            return filePath.resolveSibling(filePath.getFileName() + ".journal.compacting");
         }
+
+        /**
+         * @return Whether any snapshot or journal has ever been written for the given file.
+         */
+        static boolean hasData(Path filePath) {
+            return Files.exists(liveJournalPath(filePath)) || Files.exists(compactingJournalPath(filePath)) || hasSnapshot(filePath);
+        }
+
+        /**
+         * @return Whether a snapshot of any generation has been written for the given file.
+         */
+        static boolean hasSnapshot(Path filePath) {
+            for (int generation = 0; generation <= SNAPSHOT_GENERATIONS; generation++)
+                if (Files.exists(snapshotPath(filePath, generation))) return true;
+            return false;
+        }
+    }
+
+    /**
+     * @return The keyed entries backing a partition's data object, or null if it is not a keyed collection.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> entriesOf(Object data) {
+        if (data instanceof DataPartition<?> dataPartition) return (Map<Object, Object>) (Map<?, ?>) dataPartition.getData();
+        if (data instanceof Map<?, ?> map) return (Map<Object, Object>) map;
+        return null;
     }
 
     /**
      * Initializes the entire data service. This should be called once at bot startup.
-     * It loads all data, starts the auto-save timer, and registers the shutdown hook.
-     * @param saveIntervalSeconds How often to check for changes to save.
+     * It loads all data, starts a save lane for every partition, and registers the shutdown hook.
+     * @param saveIntervalSeconds How long to wait after a change before saving, so bursts of changes are written together.
      */
     public static void initialize(int saveIntervalSeconds) {
         log.info("Initializing DataStoreService...");
@@ -54,7 +232,7 @@ public class DataStore {
             log.error("Could not create data directory!", e);
         }
         loadAll();
-        scheduleAutoSave(saveIntervalSeconds);
+        startSaveLanes(saveIntervalSeconds);
         Runtime.getRuntime().addShutdownHook(new Thread(DataStore::shutdown));
         log.info("DataStoreService ready.");
     }
@@ -69,20 +247,172 @@ public class DataStore {
      * @param defaultSupplier A function that provides a new, empty object if the file doesn't exist.
      */
     public static <T> void register(String name, String fileName, Type type, Supplier<T> defaultSupplier) {
+        register(name, fileName, type, defaultSupplier, SnapshotCodec.JSON);
+    }
+
+    /**
+     * Registers a new data type to be managed by the service, saved with a specific snapshot format.
+     * Snapshots are always read with the codec that wrote them, and a partition whose file doesn't end in ".json"
+     * picks up the matching ".json" file the first time it loads, so switching codecs keeps existing data.
+     *
+     * @param name A unique name for this data partition (e.g., "expenses").
+     * @param fileName The name of the snapshot file (e.g., "expenses.bin").
+     * @param type The Gson TypeToken for deserialization.
+     * @param defaultSupplier A function that provides a new, empty object if the file doesn't exist.
+     * @param codec The format snapshots of this partition are written in.
+     */
+    public static <T> void register(String name, String fileName, Type type, Supplier<T> defaultSupplier, SnapshotCodec codec) {
         Path filePath = DATA_DIRECTORY.resolve(fileName);
-        partitions.put(name, new Partition<>(filePath, type, defaultSupplier));
+        partitions.put(name, new Partition<>(name, filePath, type, defaultSupplier, codec));
     }
 
     /**
      * Marks a data partition as "dirty", indicating it has changed and needs to be saved.
-     * This is the method your manager classes should call after modifying data.
+     * The whole partition will be rewritten on the next save, so prefer {@link #markDirty(String, Object)}
+     * when only a single entry changed.
      * @param name The name of the partition to mark (e.g., "expenses").
      */
     public static void markDirty(String name) {
         Partition<?> partition = partitions.get(name);
         if (partition != null) {
-            partition.dirty = true;
+            partition.markFullSave();
+            requestSave(partition);
+        }
+    }
+
+    /**
+     * Records a change to a single entry of a partition by appending it to the partition's journal.
+     * The current value stored under the key is written, or a removal if the key is no longer present.
+     * This is the method your manager classes should call after modifying one entry.
+     * @param name The name of the partition that changed (e.g., "expenses").
+     * @param key The key of the entry that was created, modified or removed.
+     */
+    public static void markDirty(String name, Object key) {
+        Partition<?> partition = partitions.get(name);
+        if (partition == null) return;
+
+        if (!partition.isJournaled()) {
+            markDirty(name);
+            return;
+        }
+
+        partition.journalLock.lock();
+        try {
+            appendToJournal(partition, changeRecord(partition, key));
+            flushJournal(partition);
+        } catch (IOException e) {
+            log.error("Failed to journal change to '{}' in partition '{}'. Falling back to a full save.", key, name, e);
+            partition.markFullSave();
+        } finally {
+            partition.journalLock.unlock();
+        }
+
+        if (needsSave(partition)) requestSave(partition);
+    }
+
+    /**
+     * Records changes to many entries of a partition at once, like {@link #markDirty(String, Object)} for each key,
+     * but the journal is flushed only once at the end. Use this after creating or changing entries in bulk.
+     * @param name The name of the partition that changed (e.g., "expenses").
+     * @param keys The keys of the entries that were created, modified or removed.
+     */
+    public static void markDirty(String name, Collection<?> keys) {
+        Partition<?> partition = partitions.get(name);
+        if (partition == null || keys.isEmpty()) return;
+
+        if (!partition.isJournaled()) {
+            markDirty(name);
+            return;
+        }
+
+        partition.journalLock.lock();
+        try {
+            for (Object key : keys)
+                appendToJournal(partition, changeRecord(partition, key));
+            flushJournal(partition);
+        } catch (IOException e) {
+            log.error("Failed to journal {} changes in partition '{}'. Falling back to a full save.", keys.size(), name, e);
+            partition.markFullSave();
+        } finally {
+            partition.journalLock.unlock();
+        }
+
+        if (needsSave(partition)) requestSave(partition);
+    }
+
+    /**
+     * Builds the journal record holding the current value of an entry, or its removal if the key is no longer present.
+     */
+    private static JsonObject changeRecord(Partition<?> partition, Object key) {
+        // Partitions keyed by Long must not be probed with an Integer, or the entry would look removed.
+        if (key instanceof Number number && partition.keyType == Long.class)
+            key = number.longValue();
+
+        JsonObject record = new JsonObject();
+        Object value = partition.entries().get(key);
+        record.addProperty("op", value == null ? "remove" : "put");
+        record.addProperty("key", String.valueOf(key));
+        if (value != null)
+            record.add("value", copyOf(partition, value));
+        return record;
+    }
+
+    /**
+     * Reserves a block of consecutive IDs in a DataPartition in a single step, for creating many items at once.
+     * The reservation is journaled before the IDs are handed out, so none of them is ever handed out again,
+     * even after a crash and even if some of them never end up being used.
+     * @param name The name of the partition to reserve IDs in (e.g., "debts").
+     * @param count How many IDs to reserve.
+     * @return The first reserved ID. The block runs up to and including {@code first + count - 1}.
+     */
+    public static long reserveIds(String name, int count) {
+        if (count < 1) throw new IllegalArgumentException("Can't reserve " + count + " IDs.");
+        Partition<?> partition = partitions.get(name);
+        if (partition == null || !(partition.data instanceof DataPartition<?> dataPartition)) {
+            throw new IllegalArgumentException("No DataPartition registered with name: " + name);
         }
+
+        long first;
+        partition.journalLock.lock();
+        try {
+            first = dataPartition.reserveIds(count);
+            long last = first + count - 1;
+
+            JsonObject record = new JsonObject();
+            record.addProperty("op", "reserve");
+            record.addProperty("key", String.valueOf(last));
+            try {
+                appendToJournal(partition, record);
+                flushJournal(partition);
+            } catch (IOException e) {
+                // The next full save writes a nextId past the block, which covers it just the same.
+                log.error("Failed to journal reserved IDs {}-{} in partition '{}'. Falling back to a full save.", first, last, name, e);
+                partition.markFullSave();
+            }
+        } finally {
+            partition.journalLock.unlock();
+        }
+
+        if (needsSave(partition)) requestSave(partition);
+        return first;
+    }
+
+    /**
+     * Appends a record to a partition's journal. Must be called while holding the partition's journal lock,
+     * and followed by {@link #flushJournal(Partition)} once every record of the change is written.
+     */
+    private static void appendToJournal(Partition<?> partition, JsonObject record) throws IOException {
+        if (partition.journal == null)
+            partition.journal = Files.newBufferedWriter(partition.journalPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        partition.journal.write(gson.toJson(record));
+        partition.journal.newLine();
+        partition.journalEntries++;
+        partition.version.incrementAndGet();
+    }
+
+    private static void flushJournal(Partition<?> partition) throws IOException {
+        partition.journal.flush();
     }
 
     /**
@@ -99,65 +429,433 @@ public class DataStore {
         return (T) partition.data;
     }
 
+    /**
+     * Gets how many times a partition has changed since it was loaded. It changes whenever the partition is
+     * marked dirty, so anything derived from the partition can tell it is out of date by comparing versions.
+     * @param name The name of the partition.
+     * @return The version, or 0 if no partition is registered with that name.
+     */
+    public static long getVersion(String name) {
+        Partition<?> partition = partitions.get(name);
+        return partition == null ? 0 : partition.version.get();
+    }
+
 
+    /**
+     * Loads every partition. Partitions don't depend on each other, so each one is loaded on its own thread.
+     */
     private static void loadAll() {
         log.info("Loading all data partitions...");
+        long start = System.nanoTime();
 
-        for (Map.Entry<String, Partition<?>> entry : partitions.entrySet()) {
-            Partition<?> partition = entry.getValue();
-            try {
-                Files.createDirectories(partition.filePath.getParent());
-                if (Files.exists(partition.filePath)) {
-                    String json = Files.readString(partition.filePath);
-                    if (json != null && !json.isEmpty()) {
-
-                        partition.data = gson.fromJson(json, partition.type);
-                        log.info("Successfully loaded partition '{}' from {}", entry.getKey(), partition.filePath);
-
-                        if (partition.data instanceof DataPartition) {
-                            log.info("Detected DataPartition for '{}'. Running post-load actions...", entry.getKey());
-                            // If it is, cast it and call the method directly.
-                            ((DataPartition<?>) partition.data).performPostLoadActions();
-                        }
-                    }
+        ExecutorService loaders = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(partitions.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            CompletableFuture.allOf(partitions.entrySet().stream()
+                    .map(entry -> CompletableFuture.runAsync(() -> load(entry.getKey(), entry.getValue()), loaders))
+                    .toArray(CompletableFuture[]::new)
+            ).join();
+        } finally {
+            loaders.shutdown();
+        }
+
+        log.info("Loaded {} partitions in {} ms.", partitions.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static void load(String name, Partition<?> partition) {
+        try {
+            Files.createDirectories(partition.filePath.getParent());
+
+            // Until the first snapshot in the new format is written, the legacy file is still where the data is.
+            // Changes made since the migration started are only in the new journal, replayed on top of it below.
+            Path source = partition.filePath;
+            if (partition.legacyFilePath != null && !Partition.hasSnapshot(source) && Partition.hasData(partition.legacyFilePath)) {
+                log.info("Migrating partition '{}' from {} to {}", name, partition.legacyFilePath, partition.filePath);
+                source = partition.legacyFilePath;
+                partition.markFullSave();
+            }
+
+            int generation = loadNewestValidSnapshot(name, partition, source);
+            if (generation > 0) {
+                log.warn("Partition '{}' was restored from an older snapshot, {}", name, Partition.snapshotPath(source, generation));
+                partition.markFullSave();
+            }
+
+            if (partition.isJournaled()) {
+                // Replay every journal written since the snapshot that was loaded, oldest first.
+                int replayed = 0;
+                for (int g = Math.max(generation, 0); g >= 1; g--)
+                    replayed += replayJournal(partition, Partition.journalPath(source, g));
+                replayed += replayJournal(partition, Partition.compactingJournalPath(source))
+                        + replayJournal(partition, Partition.liveJournalPath(source));
+                if (!source.equals(partition.filePath))
+                    replayed += replayJournal(partition, Partition.compactingJournalPath(partition.filePath))
+                            + replayJournal(partition, Partition.liveJournalPath(partition.filePath));
+                if (replayed > 0) {
+                    log.info("Replayed {} journal records for partition '{}'.", replayed, name);
+                    // Fold the replayed records into a fresh snapshot on the next save.
+                    partition.markFullSave();
                 }
-            } catch (IOException e) {
-                log.error("Failed to load data for partition '{}' from {}", entry.getKey(), partition.filePath, e);
             }
+
+            if (partition.data instanceof DataPartition) {
+                log.info("Detected DataPartition for '{}'. Running post-load actions...", name);
+                // If it is, cast it and call the method directly.
+                ((DataPartition<?>) partition.data).performPostLoadActions();
+            }
+        } catch (IOException e) {
+            log.error("Failed to load data for partition '{}' from {}", name, partition.filePath, e);
         }
     }
 
-    private static void save(String name) {
-        Partition<?> partition = partitions.get(name);
-        if (partition == null) return;
+    /**
+     * Loads the newest snapshot generation of a partition that can be read in full.
+     * A snapshot that was cut off halfway through fails to parse and is skipped.
+     * @return The generation that was loaded, or -1 if there was nothing to load.
+     */
+    private static <T> int loadNewestValidSnapshot(String name, Partition<T> partition, Path source) {
+        for (int generation = 0; generation <= SNAPSHOT_GENERATIONS; generation++) {
+            Path snapshotPath = Partition.snapshotPath(source, generation);
+            if (!Files.exists(snapshotPath)) continue;
 
-        try {
-            String json = gson.toJson(partition.data);
-            Files.writeString(partition.filePath, json);
-            log.info("Saved partition '{}' to {}", name, partition.filePath);
-        } catch (IOException e) {
-            log.error("Failed to save data for partition '{}' to {}", name, partition.filePath, e);
+            long start = System.nanoTime();
+            try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+                if (channel.size() == 0) {
+                    log.warn("Snapshot {} for partition '{}' is empty, trying an older one.", snapshotPath, name);
+                    continue;
+                }
+
+                JsonReader reader = SnapshotCodec.open(Channels.newInputStream(channel));
+                if (reader.peek() == JsonToken.NULL) {
+                    log.warn("Snapshot {} for partition '{}' is empty, trying an older one.", snapshotPath, name);
+                    continue;
+                }
+
+                partition.data = readSnapshot(partition, reader);
+                log.info("Successfully loaded partition '{}' from {} ({} bytes in {} ms)", name, snapshotPath,
+                        channel.position(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return generation;
+            } catch (IOException | RuntimeException e) {
+                // Whatever a torn or corrupt snapshot throws, an older generation may still be good.
+                log.warn("Snapshot {} for partition '{}' could not be read, trying an older one.", snapshotPath, name, e);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a snapshot one entry at a time, so the file is never held in memory as a whole.
+     * Partitions that aren't keyed collections are handed to Gson as they are.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T readSnapshot(Partition<T> partition, JsonReader reader) throws IOException {
+        if (partition.keyType == null) return gson.fromJson(reader, partition.type);
+
+        T data = partition.defaultSupplier.get();
+        if (data instanceof DataPartition<?> dataPartition) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "nextId" -> dataPartition.advanceNextId(reader.nextLong() - 1);
+                    case "data" -> readEntries(partition, reader, entriesOf(data));
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return data;
+        }
+
+        Map<Object, Object> entries = entriesOf(data);
+        if (entries == null) return gson.fromJson(reader, partition.type);
+        readEntries(partition, reader, entries);
+        return data;
+    }
+
+    private static void readEntries(Partition<?> partition, JsonReader reader, Map<Object, Object> entries) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            Object key = gson.fromJson(new JsonPrimitive(reader.nextName()), partition.keyType);
+            entries.put(key, gson.fromJson(reader, partition.valueType));
         }
+        reader.endObject();
     }
 
-    private static void scheduleAutoSave(int intervalSeconds) {
-        scheduler.scheduleAtFixedRate(() -> {
-            for (Map.Entry<String, Partition<?>> entry : partitions.entrySet()) {
-                Partition<?> partition = entry.getValue();
-                if (partition.dirty) {
-                    save(entry.getKey());
-                    partition.dirty = false; // Reset the flag after saving
+    /**
+     * Applies every record of a journal file on top of the partition's in-memory data.
+     * Records hold the full value of an entry, so replaying one that is already part of the snapshot is harmless.
+     * @return The number of records applied.
+     */
+    private static int replayJournal(Partition<?> partition, Path journalPath) throws IOException {
+        if (!Files.exists(journalPath)) return 0;
+
+        Map<Object, Object> entries = partition.entries();
+        int applied = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+
+                JsonObject record;
+                try {
+                    record = gson.fromJson(line, JsonObject.class);
+                } catch (JsonParseException e) {
+                    // A torn write at the end of the journal, everything before it is still good.
+                    log.warn("Stopped replaying {} at a malformed record.", journalPath);
+                    break;
+                }
+
+                Object key = gson.fromJson(new JsonPrimitive(record.get("key").getAsString()), partition.keyType);
+                switch (record.get("op").getAsString()) {
+                    case "put" -> entries.put(key, gson.fromJson(record.get("value"), partition.valueType));
+                    case "remove" -> entries.remove(key);
+                    // Only moves nextId past a block of IDs that was handed out, which happens below.
+                    case "reserve" -> { }
+                    default -> log.warn("Skipped a journal record of {} with unknown operation {}.", journalPath, record.get("op"));
                 }
+
+                if (partition.data instanceof DataPartition<?> dataPartition && key instanceof Long id)
+                    dataPartition.advanceNextId(id);
+
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Writes a full snapshot of a partition and discards the journal records it now contains.
+     * The journal is set aside and the version is captured before serializing, so changes made while the
+     * snapshot is being written land in a fresh journal or keep the partition dirty, and are never lost.
+     */
+    private static void save(Partition<?> partition) {
+        long start = System.nanoTime();
+        try {
+            long capturedVersion;
+            partition.journalLock.lock();
+            try {
+                capturedVersion = partition.version.get();
+                rotateJournal(partition);
+            } finally {
+                partition.journalLock.unlock();
             }
-        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+
+            writeSnapshot(partition);
+            partition.savedVersion = capturedVersion;
+
+            long elapsed = System.nanoTime() - start;
+            partition.saves.increment();
+            partition.totalFlushNanos.add(elapsed);
+            partition.lastFlushNanos = elapsed;
+            partition.maxFlushNanos = Math.max(partition.maxFlushNanos, elapsed);
+            log.info("Saved partition '{}' to {} in {} ms", partition.name, partition.filePath, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (IOException e) {
+            partition.failedSaves.increment();
+            partition.markFullSave();
+            log.error("Failed to save data for partition '{}' to {}", partition.name, partition.filePath, e);
+        }
+    }
+
+    /**
+     * Replaces the live snapshot without ever leaving a half-written file in its place.
+     * The snapshot is streamed to a temporary file with the partition's codec and flushed to disk,
+     * the previous generations are shifted back by one, and the temporary file is then renamed over the live one.
+     */
+    private static void writeSnapshot(Partition<?> partition) throws IOException {
+        try (FileChannel channel = FileChannel.open(partition.tempPath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            JsonWriter writer = partition.codec.newWriter(Channels.newOutputStream(channel));
+            writeData(partition, writer);
+            writer.flush();
+            channel.force(true);
+        }
+
+        shiftGenerations(partition);
+        Files.move(partition.tempPath, partition.filePath, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(partition.filePath.getParent());
+    }
+
+    /**
+     * Serializes a partition while commands keep changing it. Each entry is copied while holding the entry's
+     * own lock, which its mutators take as well, so every entry is written exactly as it was at one point in time
+     * and nothing is locked while the copy is written out. Changes made after an entry was copied are in the
+     * journal that was started before the snapshot, so replaying it brings the entry up to date.
+     */
+    private static void writeData(Partition<?> partition, JsonWriter writer) throws IOException {
+        if (!partition.isJournaled()) {
+            gson.toJson(copyOf(partition.data, partition.type), writer);
+            return;
+        }
+
+        if (partition.data instanceof DataPartition<?> dataPartition) {
+            writer.beginObject();
+            writer.name("data");
+            writeEntries(partition, writer);
+            // Read after the entries, so it is past every ID that was written.
+            writer.name("nextId").value(dataPartition.getNextId());
+            writer.endObject();
+        } else {
+            writeEntries(partition, writer);
+        }
+    }
+
+    private static void writeEntries(Partition<?> partition, JsonWriter writer) throws IOException {
+        writer.beginObject();
+        for (Map.Entry<Object, Object> entry : partition.entries().entrySet()) {
+            writer.name(String.valueOf(entry.getKey()));
+            gson.toJson(copyOf(partition, entry.getValue()), writer);
+        }
+        writer.endObject();
+    }
+
+    private static JsonElement copyOf(Partition<?> partition, Object value) {
+        return copyOf(value, partition.valueType);
+    }
+
+    /**
+     * Copies a value into a detached JSON tree while holding the value's lock.
+     */
+    private static JsonElement copyOf(Object value, Type type) {
+        synchronized (value) {
+            return gson.toJsonTree(value, type);
+        }
+    }
+
+    /**
+     * Moves every snapshot one generation back, dropping the oldest. Each snapshot's journal moves with it,
+     * and the journal that was just folded into the new snapshot becomes the journal of generation 1.
+     */
+    private static void shiftGenerations(Partition<?> partition) throws IOException {
+        for (int generation = SNAPSHOT_GENERATIONS; generation >= 1; generation--) {
+            Path snapshotFrom = partition.snapshotPath(generation - 1);
+            Path journalFrom = generation == 1 ? partition.compactingJournalPath : partition.journalPath(generation - 1);
+
+            if (Files.exists(snapshotFrom))
+                Files.move(snapshotFrom, partition.snapshotPath(generation), StandardCopyOption.REPLACE_EXISTING);
+
+            if (Files.exists(journalFrom))
+                Files.move(journalFrom, partition.journalPath(generation), StandardCopyOption.REPLACE_EXISTING);
+            else
+                Files.deleteIfExists(partition.journalPath(generation));
+        }
+    }
+
+    /**
+     * Flushes a directory so the renames inside of it survive a crash. Not every platform
+     * allows opening a directory, in which case the rename is left to the file system.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync directory {}", directory, e);
+        }
+    }
+
+    /**
+     * Moves the live journal aside so a snapshot can absorb it. If an earlier snapshot failed and left
+     * a set-aside journal behind, the live journal is appended to it instead so no records are dropped.
+     */
+    private static void rotateJournal(Partition<?> partition) throws IOException {
+        if (partition.journal != null) {
+            partition.journal.close();
+            partition.journal = null;
+        }
+        partition.journalEntries = 0;
+
+        if (!Files.exists(partition.journalPath)) return;
+
+        if (Files.exists(partition.compactingJournalPath)) {
+            Files.write(partition.compactingJournalPath, Files.readAllBytes(partition.journalPath), StandardOpenOption.APPEND);
+            Files.delete(partition.journalPath);
+        } else {
+            Files.move(partition.journalPath, partition.compactingJournalPath);
+        }
+    }
+
+    private static boolean needsSave(Partition<?> partition) {
+        return partition.isDirty() || partition.journalEntries >= COMPACTION_THRESHOLD;
+    }
+
+    private static void startSaveLanes(int delaySeconds) {
+        saveDelaySeconds = delaySeconds;
+        for (Partition<?> partition : partitions.values()) {
+            ScheduledThreadPoolExecutor lane = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "DataStore-" + partition.name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Pending saves are picked up by the shutdown hook instead of waiting out their delay.
+            lane.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            partition.lane = lane;
+
+            // Loading may already have left the partition in need of a save.
+            if (needsSave(partition)) requestSave(partition);
+        }
+    }
+
+    /**
+     * Schedules a save on the partition's lane unless one is already waiting,
+     * so a burst of changes results in a single write.
+     */
+    private static void requestSave(Partition<?> partition) {
+        ScheduledThreadPoolExecutor lane = partition.lane;
+        if (lane == null || !partition.saveScheduled.compareAndSet(false, true)) return;
+
+        try {
+            lane.schedule(() -> {
+                // Cleared before saving, so changes made during the write schedule the next one.
+                partition.saveScheduled.set(false);
+                if (needsSave(partition)) save(partition);
+            }, saveDelaySeconds, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // Already shutting down, the shutdown hook saves whatever is left.
+        }
+    }
+
+    /**
+     * Save statistics of a single partition, with flush times covering the whole snapshot write.
+     */
+    public record SaveStats(long saves, long failedSaves, int journalEntries, boolean pending,
+                            long lastFlushMillis, long maxFlushMillis, double averageFlushMillis) {}
+
+    /**
+     * Gets the save statistics of every partition.
+     * @return The statistics, keyed by partition name.
+     */
+    public static Map<String, SaveStats> getSaveStats() {
+        Map<String, SaveStats> stats = new TreeMap<>();
+        partitions.forEach((name, partition) -> {
+            long saves = partition.saves.sum();
+            stats.put(name, new SaveStats(
+                    saves,
+                    partition.failedSaves.sum(),
+                    partition.journalEntries,
+                    partition.saveScheduled.get(),
+                    TimeUnit.NANOSECONDS.toMillis(partition.lastFlushNanos),
+                    TimeUnit.NANOSECONDS.toMillis(partition.maxFlushNanos),
+                    saves == 0 ? 0 : partition.totalFlushNanos.sum() / (saves * 1_000_000.0)
+            ));
+        });
+        return stats;
     }
 
     private static void shutdown() {
         log.info("Shutdown hook triggered. Saving all dirty data partitions...");
-        scheduler.shutdown(); // Stop the scheduler from starting new saves
-        for (Map.Entry<String, Partition<?>> entry : partitions.entrySet()) {
-            if (entry.getValue().dirty) {
-                save(entry.getKey()); // Force-save any remaining dirty data
+        // Stop the lanes from starting new saves, and let any save already being written finish.
+        for (Partition<?> partition : partitions.values())
+            if (partition.lane != null) partition.lane.shutdown();
+        for (Partition<?> partition : partitions.values()) {
+            try {
+                if (partition.lane != null && !partition.lane.awaitTermination(30, TimeUnit.SECONDS))
+                    log.warn("Partition '{}' was still saving after 30 seconds.", partition.name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        for (Partition<?> partition : partitions.values()) {
+            if (partition.isDirty() || partition.journalEntries > 0) {
+                save(partition); // Fold any remaining journal records into the snapshot
             }
         }
         log.info("Data saving complete. Goodbye.");
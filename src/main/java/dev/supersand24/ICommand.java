@@ -1,10 +1,7 @@
 package dev.supersand24;
 
-import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 
 public interface ICommand {
@@ -15,12 +12,14 @@ public interface ICommand {
 
     void handleSlashCommand(SlashCommandInteractionEvent e);
 
-    void handleButtonInteraction(ButtonInteractionEvent e);
+    /**
+     * Suggests values for the option being typed, for options registered with autocomplete.
+     */
+    default void handleAutoComplete(CommandAutoCompleteInteractionEvent e) {}
 
-    void handleStringSelectInteraction(StringSelectInteractionEvent e);
-
-    void handleEntitySelectInteraction(EntitySelectInteractionEvent e);
-
-    void handleModalInteraction(ModalInteractionEvent e);
+    /**
+     * Registers handlers for the components and modals this command sends. Their IDs start with the command's name.
+     */
+    default void registerComponents(ComponentRouter router) {}
 
 }
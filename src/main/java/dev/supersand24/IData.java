@@ -4,4 +4,10 @@ public interface IData {
 
     void setId(long id);
 
+    /**
+     * Called once the item and every journaled change to it have been loaded,
+     * so data saved by older versions can be brought up to date.
+     */
+    default void afterLoad() {}
+
 }
@@ -0,0 +1,225 @@
+package dev.supersand24;
+
+import net.dv8tion.jda.api.components.MessageTopLevelComponent;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.interactions.callbacks.IMessageEditCallback;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs interaction handlers on virtual threads, so a slow handler never holds up JDA's event thread
+ * and with it every other interaction and voice update.
+ * <p>
+ * Handlers with the same ordering key run one at a time, in the order their interactions arrived.
+ * By default that is the user, so a user's clicks are handled in the order they made them.
+ * Handlers for different keys run in parallel.
+ * <p>
+ * Discord drops interactions that aren't acknowledged within 3 seconds. Handlers that are still running
+ * shortly before that have their interaction deferred for them. Handlers answer through {@link #reply},
+ * {@link #editComponents} and the other helpers here, which answer through the interaction's hook instead
+ * once it was deferred, so a slow handler still gets its answer across. They lock the event while answering,
+ * like deferring does, so the two never both answer.
+ */
+public final class InteractionDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(InteractionDispatcher.class);
+
+    /** Leaves a second of the 3 second deadline for the defer to reach Discord. */
+    private static final long AUTO_DEFER_MILLIS = 2_000;
+
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService deferTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "InteractionDispatcher-defer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The last handler queued for each ordering key, which the next one for that key waits for. */
+    private final Map<Object, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final Map<String, Metrics> metrics = new ConcurrentHashMap<>();
+
+    private static class Metrics {
+        final AtomicInteger queued = new AtomicInteger();
+        final LongAdder handled = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder autoDeferred = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+
+    /**
+     * Queues a handler behind any others with the same ordering key.
+     * @param name The command the interaction belongs to, which metrics are kept under.
+     * @param orderingKey Handlers with equal keys run one at a time, in order.
+     */
+    public <E extends GenericInteractionCreateEvent & IReplyCallback> void submit(String name, Object orderingKey, E event, Runnable handler) {
+        submit(name, orderingKey, event, true, handler);
+    }
+
+    /**
+     * Queues a handler behind any others with the same ordering key.
+     * @param name The command the interaction belongs to, which metrics are kept under.
+     * @param orderingKey Handlers with equal keys run one at a time, in order.
+     * @param autoDefer Whether to defer the interaction if the handler takes long. Handlers that open a modal
+     *                  can't, since a modal has to be the first answer to an interaction.
+     */
+    public <E extends GenericInteractionCreateEvent & IReplyCallback> void submit(String name, Object orderingKey, E event, boolean autoDefer, Runnable handler) {
+        Metrics commandMetrics = metrics.computeIfAbsent(name, key -> new Metrics());
+        commandMetrics.queued.incrementAndGet();
+        long queuedAt = System.nanoTime();
+
+        Runnable task = () -> {
+            commandMetrics.queued.decrementAndGet();
+            ScheduledFuture<?> deferral = autoDefer ? scheduleAutoDefer(name, event, commandMetrics) : null;
+            try {
+                handler.run();
+            } catch (Throwable t) {
+                commandMetrics.failed.increment();
+                log.error("Handling {} interaction {} failed.", name, event.getId(), t);
+                replyWithError(event);
+            } finally {
+                if (deferral != null) deferral.cancel(false);
+                long nanos = System.nanoTime() - queuedAt;
+                commandMetrics.handled.increment();
+                commandMetrics.totalNanos.add(nanos);
+                commandMetrics.maxNanos.accumulateAndGet(nanos, Math::max);
+            }
+        };
+
+        // The task never completes exceptionally, so a failed handler doesn't stop the ones queued behind it.
+        CompletableFuture<Void> queued = tails.compute(orderingKey, (key, tail) -> tail == null
+                ? CompletableFuture.runAsync(task, workers)
+                : tail.thenRunAsync(task, workers));
+        queued.whenComplete((result, t) -> tails.remove(orderingKey, queued));
+    }
+
+    private <E extends GenericInteractionCreateEvent & IReplyCallback> ScheduledFuture<?> scheduleAutoDefer(String name, E event, Metrics commandMetrics) {
+        long age = Duration.between(event.getTimeCreated(), OffsetDateTime.now()).toMillis();
+        return deferTimer.schedule(() -> {
+            synchronized (event) {
+                if (event.isAcknowledged()) return;
+                commandMetrics.autoDeferred.increment();
+                log.warn("{} interaction {} is taking long, deferring it.", name, event.getId());
+                // Components keep their message, anything else gets a reply only the user sees.
+                if (event instanceof IMessageEditCallback callback && !(event instanceof ModalInteractionEvent))
+                    callback.deferEdit().queue();
+                else
+                    event.deferReply(true).queue();
+            }
+        }, Math.max(AUTO_DEFER_MILLIS - age, 0), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replies to an interaction, or sends the reply through its hook if it was already deferred.
+     * A reply through the hook stays ephemeral if the interaction was deferred that way.
+     */
+    public static void reply(IReplyCallback event, MessageCreateData message, boolean ephemeral) {
+        synchronized (event) {
+            if (event.isAcknowledged())
+                event.getHook().sendMessage(message).setEphemeral(ephemeral).queue();
+            else
+                event.reply(message).setEphemeral(ephemeral).queue();
+        }
+    }
+
+    public static void reply(IReplyCallback event, String content, boolean ephemeral) {
+        reply(event, MessageCreateData.fromContent(content), ephemeral);
+    }
+
+    public static void replyEmbeds(IReplyCallback event, MessageEmbed embed, boolean ephemeral) {
+        reply(event, MessageCreateData.fromEmbeds(embed), ephemeral);
+    }
+
+    /**
+     * Replies with components v2, like a {@link net.dv8tion.jda.api.components.container.Container}.
+     */
+    public static void replyComponents(IReplyCallback event, boolean ephemeral, MessageTopLevelComponent... components) {
+        reply(event, new MessageCreateBuilder().useComponentsV2().setComponents(components).build(), ephemeral);
+    }
+
+    /**
+     * Replaces the components of the message a component belongs to with components v2,
+     * through the interaction's hook if it was already deferred.
+     */
+    public static void editComponents(IMessageEditCallback event, Collection<? extends MessageTopLevelComponent> components) {
+        synchronized (event) {
+            if (event.isAcknowledged())
+                event.getHook().editOriginalComponents(components).useComponentsV2().queue();
+            else
+                event.editComponents(components).useComponentsV2().queue();
+        }
+    }
+
+    public static void editComponents(IMessageEditCallback event, MessageTopLevelComponent... components) {
+        editComponents(event, List.of(components));
+    }
+
+    /**
+     * Defers a reply, unless the interaction was already deferred. Either way, the answer goes through the hook.
+     */
+    public static void deferReply(IReplyCallback event, boolean ephemeral) {
+        synchronized (event) {
+            if (!event.isAcknowledged()) event.deferReply(ephemeral).queue();
+        }
+    }
+
+    /**
+     * Defers an edit of the component's message, unless the interaction was already deferred.
+     */
+    public static void deferEdit(IMessageEditCallback event) {
+        synchronized (event) {
+            if (!event.isAcknowledged()) event.deferEdit().queue();
+        }
+    }
+
+    private static void replyWithError(IReplyCallback event) {
+        try {
+            reply(event, "Something went wrong!", true);
+        } catch (RuntimeException e) {
+            log.warn("Could not report the failure to the user.", e);
+        }
+    }
+
+    /**
+     * Handling statistics of a single command, with latencies covering both waiting in line and running.
+     */
+    public record CommandStats(int queued, long handled, long failed, long autoDeferred,
+                               double averageMillis, long maxMillis) {}
+
+    /**
+     * Gets the handling statistics of every command that has received an interaction.
+     * @return The statistics, keyed by command name.
+     */
+    public Map<String, CommandStats> getStats() {
+        Map<String, CommandStats> stats = new TreeMap<>();
+        metrics.forEach((name, commandMetrics) -> {
+            long handled = commandMetrics.handled.sum();
+            stats.put(name, new CommandStats(
+                    commandMetrics.queued.get(),
+                    handled,
+                    commandMetrics.failed.sum(),
+                    commandMetrics.autoDeferred.sum(),
+                    handled == 0 ? 0 : commandMetrics.totalNanos.sum() / (handled * 1_000_000.0),
+                    TimeUnit.NANOSECONDS.toMillis(commandMetrics.maxNanos.get())
+            ));
+        });
+        return stats;
+    }
+
+}
@@ -0,0 +1,28 @@
+package dev.supersand24;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+public class JsonSnapshotCodec implements SnapshotCodec {
+
+    @Override
+    public JsonWriter newWriter(OutputStream out) {
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        writer.setIndent("  ");
+        return writer;
+    }
+
+    @Override
+    public JsonReader newReader(InputStream in) {
+        return new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+}
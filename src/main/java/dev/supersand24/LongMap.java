@@ -0,0 +1,344 @@
+package dev.supersand24;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A map from primitive long keys to values, for partitions keyed by ID.
+ * Keys are kept in a flat long[] next to the values and found by linear probing, so a lookup
+ * through {@link #get(long)} never boxes the key and an entry costs no node or {@link Long}.
+ * <p>
+ * Reads never lock and see every write that finished before them. Writes are serialized on the map.
+ * Iteration is weakly consistent like {@link java.util.concurrent.ConcurrentHashMap}'s and never throws
+ * {@link ConcurrentModificationException}. Null values are not allowed.
+ */
+public final class LongMap<V> extends AbstractMap<Long, V> {
+
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    /** Marks a slot whose key was removed. The key stays so the slot can only ever hold that key. */
+    private static final Object REMOVED = new Object();
+
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * A slot's key is written once, before its first value is published, and never changes afterwards.
+     * That lets readers trust the key of any slot whose value they can see without taking a lock.
+     */
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+        /** Slots that hold a value or were removed. */
+        int used;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+    }
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private volatile int size;
+
+    private Set<Entry<Long, V>> entrySet;
+
+    public LongMap() {
+    }
+
+    public LongMap(Map<Long, ? extends V> other) {
+        putAll(other);
+    }
+
+    /**
+     * Spreads sequential IDs and Discord snowflakes, whose low bits change slowly, across the whole table.
+     */
+    private static int slotOf(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Table t = table;
+        int mask = t.keys.length - 1;
+        for (int i = slotOf(key, mask); ; i = (i + 1) & mask) {
+            Object value = VALUES.getAcquire(t.values, i);
+            if (value == null) return null;
+            if (t.keys[i] == key) return value == REMOVED ? null : (V) value;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized V put(long key, V value) {
+        Objects.requireNonNull(value, "value");
+        Table t = table;
+        int mask = t.keys.length - 1;
+        int i = slotOf(key, mask);
+        for (Object current; (current = t.values[i]) != null; i = (i + 1) & mask) {
+            if (t.keys[i] == key) {
+                VALUES.setRelease(t.values, i, value);
+                if (current == REMOVED) {
+                    size++;
+                    return null;
+                }
+                return (V) current;
+            }
+        }
+
+        t.keys[i] = key;
+        VALUES.setRelease(t.values, i, value);
+        size++;
+        if (++t.used * 2 > t.keys.length) rehash();
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized V remove(long key) {
+        Table t = table;
+        int mask = t.keys.length - 1;
+        for (int i = slotOf(key, mask); ; i = (i + 1) & mask) {
+            Object current = t.values[i];
+            if (current == null) return null;
+            if (t.keys[i] == key) {
+                if (current == REMOVED) return null;
+                VALUES.setRelease(t.values, i, REMOVED);
+                size--;
+                return (V) current;
+            }
+        }
+    }
+
+    /**
+     * Copies the live entries into a fresh table sized for them, which also drops removed slots.
+     * Readers still probing the old table see it as it was just before the switch.
+     */
+    private void rehash() {
+        Table old = table;
+        int capacity = MIN_CAPACITY;
+        while (capacity < size * 4) capacity <<= 1;
+
+        Table t = new Table(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < old.keys.length; j++) {
+            Object value = old.values[j];
+            if (value == null || value == REMOVED) continue;
+            int i = slotOf(old.keys[j], mask);
+            while (t.values[i] != null) i = (i + 1) & mask;
+            t.keys[i] = old.keys[j];
+            t.values[i] = value;
+            t.used++;
+        }
+        table = t;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Long id ? get(id.longValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(Long key, V value) {
+        return put(key.longValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Long id ? remove(id.longValue()) : null;
+    }
+
+    @Override
+    public synchronized V putIfAbsent(Long key, V value) {
+        V current = get(key.longValue());
+        return current != null ? current : put(key.longValue(), value);
+    }
+
+    @Override
+    public synchronized V computeIfAbsent(Long key, Function<? super Long, ? extends V> mappingFunction) {
+        V current = get(key.longValue());
+        if (current != null) return current;
+        V value = mappingFunction.apply(key);
+        if (value != null) put(key.longValue(), value);
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public synchronized void clear() {
+        table = new Table(MIN_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * Visits every entry without boxing its key.
+     */
+    public void forEachEntry(LongObjConsumer<? super V> action) {
+        Table t = table;
+        for (int i = 0; i < t.keys.length; i++) {
+            Object value = VALUES.getAcquire(t.values, i);
+            if (value != null && value != REMOVED) action.accept(t.keys[i], cast(value));
+        }
+    }
+
+    @Override
+    public Set<Entry<Long, V>> entrySet() {
+        if (entrySet == null) entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    @FunctionalInterface
+    public interface LongObjConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<Long, V>> {
+
+        @Override
+        public Iterator<Entry<Long, V>> iterator() {
+            return new EntryIterator(table);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Entry<?, ?> entry && entry.getValue() != null && entry.getValue().equals(get(entry.getKey()));
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return contains(o) && LongMap.this.remove(((Entry<?, ?>) o).getKey()) != null;
+        }
+
+        @Override
+        public void clear() {
+            LongMap.this.clear();
+        }
+
+    }
+
+    /**
+     * Walks one table. Entries put after it started may or may not be seen, like ConcurrentHashMap's iterators.
+     */
+    private final class EntryIterator implements Iterator<Entry<Long, V>> {
+
+        private final Table t;
+        private int index = -1;
+        private Entry<Long, V> next;
+        private Entry<Long, V> last;
+
+        EntryIterator(Table t) {
+            this.t = t;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (++index < t.keys.length) {
+                Object value = VALUES.getAcquire(t.values, index);
+                if (value != null && value != REMOVED) {
+                    next = new MapEntry(t.keys[index], cast(value));
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<Long, V> next() {
+            if (next == null) throw new NoSuchElementException();
+            last = next;
+            advance();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) throw new IllegalStateException();
+            LongMap.this.remove(last.getKey().longValue());
+            last = null;
+        }
+
+    }
+
+    private final class MapEntry implements Entry<Long, V> {
+
+        private final long key;
+        private V value;
+
+        MapEntry(long key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Long getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            LongMap.this.put(key, value);
+            V previous = this.value;
+            this.value = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry<?, ?> entry
+                    && getKey().equals(entry.getKey())
+                    && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+
+    }
+
+}
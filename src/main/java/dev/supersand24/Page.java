@@ -0,0 +1,76 @@
+package dev.supersand24;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+
+/**
+ * One page of an ordered index. Pages are found with a range query starting at a cursor, the first or last key
+ * of the page next to it, so fetching a page costs the same no matter how far into the index it is.
+ * @param items The keys on this page, in index order.
+ * @param hasPrevious Whether there are keys before this page.
+ * @param hasNext Whether there are keys after this page.
+ */
+public record Page<K>(List<K> items, boolean hasPrevious, boolean hasNext) {
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    public K first() {
+        return items.getFirst();
+    }
+
+    public K last() {
+        return items.getLast();
+    }
+
+    /**
+     * @return The first page of the index.
+     */
+    public static <K> Page<K> first(NavigableSet<K> index, int size) {
+        return after(index, null, size);
+    }
+
+    /**
+     * Gets the page that starts right after the cursor. If nothing is left after it, because the keys there
+     * were removed in the meantime, the last page is returned instead.
+     * @param cursor The last key of the current page, or null for the first page.
+     */
+    public static <K> Page<K> after(NavigableSet<K> index, K cursor, int size) {
+        NavigableSet<K> range = cursor == null ? index : index.tailSet(cursor, false);
+        List<K> items = take(range.iterator(), size + 1);
+        boolean hasNext = items.size() > size;
+        if (hasNext) items.removeLast();
+
+        if (items.isEmpty())
+            return cursor == null || index.isEmpty() ? new Page<>(items, false, false) : before(index, index.last(), size, true);
+        return new Page<>(items, index.lower(items.getFirst()) != null, hasNext);
+    }
+
+    /**
+     * Gets the page that ends right before the cursor. If that would be the first page, the full first page is
+     * returned instead, which also covers keys before the cursor having been removed in the meantime.
+     * @param cursor The first key of the current page.
+     */
+    public static <K> Page<K> before(NavigableSet<K> index, K cursor, int size) {
+        return before(index, cursor, size, false);
+    }
+
+    private static <K> Page<K> before(NavigableSet<K> index, K cursor, int size, boolean inclusive) {
+        List<K> items = take(index.headSet(cursor, inclusive).descendingIterator(), size);
+        if (items.isEmpty() || index.lower(items.getLast()) == null) return first(index, size);
+        Collections.reverse(items);
+        return new Page<>(items, true, index.higher(items.getLast()) != null);
+    }
+
+    private static <K> List<K> take(Iterator<K> iterator, int count) {
+        List<K> items = new ArrayList<>(count);
+        while (items.size() < count && iterator.hasNext())
+            items.add(iterator.next());
+        return items;
+    }
+
+}
@@ -0,0 +1,118 @@
+package dev.supersand24;
+
+import net.dv8tion.jda.api.components.buttons.Button;
+import net.dv8tion.jda.api.components.container.Container;
+import net.dv8tion.jda.api.components.replacer.ComponentReplacer;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Keeps recently rendered list and detail views, so paging back and forth doesn't rebuild the same container.
+ * <p>
+ * A view is cached together with the versions of the partitions it was built from. Every
+ * {@link DataStore#markDirty(String)} bumps its partition's version, so changing the data invalidates
+ * every view built from it without the managers having to track which views that is.
+ * <p>
+ * Views are shared between users. They are rendered with {@link #AUTHOR} in place of the author's ID,
+ * which is filled into the component IDs of the buttons every time the view is handed out.
+ */
+public final class RenderCache {
+
+    /** Stands in for the author's ID in the component IDs of a cached view. */
+    public static final String AUTHOR = "{author}";
+
+    private static final int MAX_ENTRIES = 256;
+
+    private record Entry(long[] versions, Container container) {}
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    private static final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= MAX_ENTRIES) return false;
+            evictions.increment();
+            return true;
+        }
+    };
+
+    private RenderCache() {}
+
+    /**
+     * Gets a view, rendering it only if it isn't cached or a partition it was built from changed since.
+     * @param key Identifies the view and everything it was rendered from other than partition data, like the page.
+     * @param authorId The user the view is for.
+     * @param render Builds the view with {@link #AUTHOR} as the author. May return null, which is never cached.
+     * @param partitions The partitions the view is built from.
+     * @return The view for the author, or null if the render returned null.
+     */
+    public static Container get(String key, String authorId, Supplier<Container> render, String... partitions) {
+        // Versions are read before rendering, so a change made during the render leaves the entry out of date.
+        long[] versions = new long[partitions.length];
+        for (int i = 0; i < partitions.length; i++)
+            versions[i] = DataStore.getVersion(partitions[i]);
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null && Arrays.equals(entry.versions, versions)) {
+            hits.increment();
+        } else {
+            misses.increment();
+            Container container = render.get();
+            if (container == null) return null;
+            entry = new Entry(versions, container);
+            synchronized (entries) {
+                entries.put(key, entry);
+            }
+        }
+
+        return personalize(entry.container, authorId);
+    }
+
+    private static Container personalize(Container container, String authorId) {
+        return container.replace(ComponentReplacer.of(
+                Button.class,
+                button -> button.getCustomId() != null && button.getCustomId().contains(AUTHOR),
+                button -> button.withCustomId(button.getCustomId().replace(AUTHOR, authorId))
+        ));
+    }
+
+    /**
+     * Drops every cached view, for when something a view shows changed outside of the DataStore.
+     */
+    public static void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Hit and miss counts since startup, and how many views are cached right now.
+     */
+    public record CacheStats(long hits, long misses, long evictions, int size) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+    }
+
+    public static CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+}
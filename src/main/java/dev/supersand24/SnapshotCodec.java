@@ -0,0 +1,39 @@
+package dev.supersand24;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Decides how a partition's snapshot is laid out on disk.
+ * Codecs hand out Gson stream readers and writers, so the DataStore serializes
+ * partitions the same way no matter which format ends up in the file.
+ */
+public interface SnapshotCodec {
+
+    /** Human-readable, pretty-printed JSON. */
+    SnapshotCodec JSON = new JsonSnapshotCodec();
+
+    /** Compact binary format with numbers stored as primitives and repeated strings stored once. */
+    SnapshotCodec BINARY = new BinarySnapshotCodec();
+
+    JsonWriter newWriter(OutputStream out) throws IOException;
+
+    JsonReader newReader(InputStream in) throws IOException;
+
+    /**
+     * Opens a snapshot with whichever codec wrote it.
+     * This lets a partition switch codecs and still read the snapshots it already has.
+     * @param in The raw snapshot contents.
+     * @return A reader positioned at the start of the snapshot.
+     */
+    static JsonReader open(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        return BinarySnapshotCodec.hasMagic(buffered) ? BINARY.newReader(buffered) : JSON.newReader(buffered);
+    }
+
+}
@@ -0,0 +1,67 @@
+package dev.supersand24;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Prints any snapshot as pretty JSON, so binary snapshots can still be inspected and diffed.
+ * <p>
+ * Usage: {@code SnapshotExport <snapshot> [output.json]}
+ */
+public class SnapshotExport {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: SnapshotExport <snapshot> [output.json]");
+            System.exit(1);
+        }
+
+        try (InputStream in = Files.newInputStream(Path.of(args[0]));
+             JsonReader reader = SnapshotCodec.open(in)) {
+            if (args.length == 2) {
+                try (OutputStream out = Files.newOutputStream(Path.of(args[1]))) {
+                    export(reader, out);
+                }
+            } else {
+                export(reader, System.out);
+            }
+        }
+    }
+
+    private static void export(JsonReader reader, OutputStream out) throws IOException {
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        writer.setIndent("  ");
+        writer.setSerializeNulls(true);
+
+        int depth = 0;
+        do {
+            switch (reader.peek()) {
+                case BEGIN_OBJECT -> { reader.beginObject(); writer.beginObject(); depth++; }
+                case END_OBJECT -> { reader.endObject(); writer.endObject(); depth--; }
+                case BEGIN_ARRAY -> { reader.beginArray(); writer.beginArray(); depth++; }
+                case END_ARRAY -> { reader.endArray(); writer.endArray(); depth--; }
+                case NAME -> writer.name(reader.nextName());
+                case STRING -> writer.value(reader.nextString());
+                // Numbers are copied as text, so nothing is lost to rounding.
+                case NUMBER -> writer.jsonValue(reader.nextString());
+                case BOOLEAN -> writer.value(reader.nextBoolean());
+                case NULL -> { reader.nextNull(); writer.nullValue(); }
+                case END_DOCUMENT -> { return; }
+            }
+        } while (depth > 0);
+
+        writer.flush();
+        out.write('\n');
+        out.flush();
+    }
+
+}
@@ -0,0 +1,149 @@
+package dev.supersand24;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * An immutable set of Discord IDs, stored as a sorted array of primitive longs.
+ * Membership checks are a binary search and the whole set costs 8 bytes per ID.
+ * Changing it returns a new set, so a set can be handed out and read without copying or locking.
+ * <p>
+ * Saved as a JSON array of numbers. Arrays of strings saved by older versions are read as well.
+ */
+@JsonAdapter(SnowflakeSet.Adapter.class)
+public final class SnowflakeSet {
+
+    public static final SnowflakeSet EMPTY = new SnowflakeSet(new long[0]);
+
+    private final long[] ids;
+
+    private SnowflakeSet(long[] sortedIds) {
+        this.ids = sortedIds;
+    }
+
+    public static SnowflakeSet of(long... ids) {
+        if (ids.length == 0) return EMPTY;
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+
+        // Drop duplicates, which sit next to each other once sorted.
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++)
+            if (sorted[i] != sorted[size - 1]) sorted[size++] = sorted[i];
+        return new SnowflakeSet(size == sorted.length ? sorted : Arrays.copyOf(sorted, size));
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    /**
+     * @return A set that also contains the ID, or this set if it already did.
+     */
+    public SnowflakeSet with(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) return this;
+
+        int insertAt = -index - 1;
+        long[] result = new long[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, insertAt);
+        result[insertAt] = id;
+        System.arraycopy(ids, insertAt, result, insertAt + 1, ids.length - insertAt);
+        return new SnowflakeSet(result);
+    }
+
+    /**
+     * @return A set without the ID, or this set if it didn't contain it.
+     */
+    public SnowflakeSet without(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) return this;
+        if (ids.length == 1) return EMPTY;
+
+        long[] result = new long[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, index);
+        System.arraycopy(ids, index + 1, result, index, ids.length - index - 1);
+        return new SnowflakeSet(result);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    /**
+     * @return The ID at a position, counting up from the lowest ID.
+     */
+    public long get(int index) {
+        return ids[index];
+    }
+
+    public long[] toArray() {
+        return ids.clone();
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(ids);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SnowflakeSet set && Arrays.equals(ids, set.ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ids);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(ids);
+    }
+
+    static class Adapter extends TypeAdapter<SnowflakeSet> {
+
+        @Override
+        public void write(JsonWriter out, SnowflakeSet set) throws IOException {
+            if (set == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (long id : set.ids)
+                out.value(id);
+            out.endArray();
+        }
+
+        @Override
+        public SnowflakeSet read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return EMPTY;
+            }
+
+            long[] ids = new long[8];
+            int size = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+                // Readers turn quoted numbers into longs as well, which is how older versions saved IDs.
+                ids[size++] = in.nextLong();
+            }
+            in.endArray();
+            return of(Arrays.copyOf(ids, size));
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+package dev.supersand24;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up the names of users without blocking.
+ * <p>
+ * Members of the server are in JDA's cache, so their names are always current and never cost a request.
+ * Anyone else, like someone who left the server but still has debts, is fetched from Discord once and
+ * remembered for a while. Lookups for the same user that overlap share a single request.
+ */
+public final class UserResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(UserResolver.class);
+
+    private static final int MAX_ENTRIES = 1024;
+    private static final long TTL_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    /** Shown for users Discord doesn't know, like deleted accounts. */
+    public static final String UNKNOWN_USER = "Unknown User";
+
+    private record Entry(String name, long expiresAt) {}
+
+    private static final Map<Long, Entry> names = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static final Map<Long, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+    private UserResolver() {}
+
+    /**
+     * Gets a user's name.
+     * @return The name, already completed if no request was needed. Never completes exceptionally,
+     * users that can't be fetched are named {@link #UNKNOWN_USER}.
+     */
+    public static CompletableFuture<String> getName(JDA jda, long userId) {
+        User cached = jda.getUserById(userId);
+        if (cached != null) return CompletableFuture.completedFuture(cached.getName());
+
+        synchronized (names) {
+            Entry entry = names.get(userId);
+            if (entry != null) {
+                if (entry.expiresAt - System.nanoTime() > 0) return CompletableFuture.completedFuture(entry.name);
+                names.remove(userId);
+            }
+        }
+
+        CompletableFuture<String> request = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = pending.putIfAbsent(userId, request);
+        if (inFlight != null) return inFlight;
+
+        jda.retrieveUserById(userId).submit().whenComplete((user, e) -> {
+            // Failures aren't remembered, they may just be Discord having trouble.
+            if (user != null) {
+                synchronized (names) {
+                    names.put(userId, new Entry(user.getName(), System.nanoTime() + TTL_NANOS));
+                }
+            } else {
+                log.warn("Could not fetch user {}: {}", userId, e.getMessage());
+            }
+            pending.remove(userId, request);
+            request.complete(user != null ? user.getName() : UNKNOWN_USER);
+        });
+        return request;
+    }
+
+}
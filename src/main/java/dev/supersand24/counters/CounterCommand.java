@@ -2,14 +2,14 @@ package dev.supersand24.counters;
 
 import dev.supersand24.ICommand;
 import net.dv8tion.jda.api.entities.User;
-import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.Command;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.*;
 
+import static dev.supersand24.InteractionDispatcher.*;
+
 public class CounterCommand implements ICommand {
 
     @Override
@@ -74,14 +74,14 @@ public class CounterCommand implements ICommand {
         if (e.getFullCommandName().equals("counter create")) {
             String optionName = e.getOption("name").getAsString();
             if (CounterManager.getCounterNames().contains(optionName)) {
-                e.reply(optionName + " counter already exists!").setEphemeral(true).queue();
+                reply(e, optionName + " counter already exists!", true);
             } else {
                 String optionDescription = e.getOption("description").getAsString();
                 int initialValue = e.getOption("initial-value") != null ? e.getOption("initial-value").getAsInt() : 0;
                 int minValue = e.getOption("min-value") != null ? e.getOption("min-value").getAsInt() : 0;
                 int maxValue = e.getOption("max-value") != null ? e.getOption("max-value").getAsInt() : Integer.MAX_VALUE;
-                CounterManager.createCounter(optionName, optionDescription, initialValue, minValue, maxValue, commandUser.getId());
-                e.reply(optionName + " counter was created!").queue();
+                CounterManager.createCounter(optionName, optionDescription, initialValue, minValue, maxValue, commandUser.getIdLong());
+                reply(e, optionName + " counter was created!", false);
             }
             return;
         }
@@ -90,13 +90,15 @@ public class CounterCommand implements ICommand {
 
         //Check to see if Counter exists
         if (!CounterManager.getCounterNames().contains(counterName)) {
-            e.reply("I can't find a counter named " + counterName + "!").setEphemeral(true).queue();
+            reply(e, "I can't find a counter named " + counterName + "!", true);
             return;
         }
 
+        CounterManager.recordUse(counterName);
+
         //Check to see if user has editing access
-        if (!CounterManager.canEdit(counterName, commandUser.getId())) {
-            e.reply("You don't have editing access on " + counterName + " counter.").setEphemeral(true).queue();
+        if (!CounterManager.canEdit(counterName, commandUser.getIdLong())) {
+            reply(e, "You don't have editing access on " + counterName + " counter.", true);
             return;
         }
 
@@ -106,21 +108,21 @@ public class CounterCommand implements ICommand {
                 switch (e.getSubcommandName()) {
                     case "increment" -> {
                         CounterManager.increment(counterName);
-                        e.reply(counterName + " counter incremented to " + CounterManager.getValue(counterName) + ".").queue();
+                        reply(e, counterName + " counter incremented to " + CounterManager.getValue(counterName) + ".", false);
                     }
                     case "decrement" -> {
                         CounterManager.decrement(counterName);
-                        e.reply(counterName + " counter decremented to " + CounterManager.getValue(counterName) + ".").queue();
+                        reply(e, counterName + " counter decremented to " + CounterManager.getValue(counterName) + ".", false);
                     }
                     case "set" -> {
                         int value = e.getOption("value").getAsInt();
                         CounterManager.setValue(counterName, value);
-                        e.reply(counterName + " counter set to " + value + ".").queue();
+                        reply(e, counterName + " counter set to " + value + ".", false);
                     }
-                    case "display" -> e.replyEmbeds(CounterManager.getCounterEmbed(counterName)).queue();
+                    case "display" -> replyEmbeds(e, CounterManager.getCounterEmbed(counterName), false);
                     case "delete" -> {
                         CounterManager.deleteCounter(counterName);
-                        e.reply(counterName + " counter was deleted!").queue();
+                        reply(e, counterName + " counter was deleted!", false);
                     }
                 }
             }
@@ -129,19 +131,19 @@ public class CounterCommand implements ICommand {
 
                 switch (e.getSubcommandName()) {
                     case "add" -> {
-                        if (CounterManager.canEdit(counterName, editor.getId())) {
-                            e.reply(editor.getName() + " is already authorized on " + counterName + " counter.").setEphemeral(true).queue();
+                        if (CounterManager.canEdit(counterName, editor.getIdLong())) {
+                            reply(e, editor.getName() + " is already authorized on " + counterName + " counter.", true);
                         } else {
-                            CounterManager.addEditor(counterName, editor.getId());
-                            e.reply(editor.getName() + " is now an editor of " + counterName + " counter.").setEphemeral(true).queue();
+                            CounterManager.addEditor(counterName, editor.getIdLong());
+                            reply(e, editor.getName() + " is now an editor of " + counterName + " counter.", true);
                         }
                     }
                     case "remove" -> {
-                        if (CounterManager.canEdit(counterName, editor.getId())) {
-                            CounterManager.removeEditor(counterName, editor.getId());
-                            e.reply(editor.getName() + " is no longer an editor of " + counterName + " counter.").setEphemeral(true).queue();
+                        if (CounterManager.canEdit(counterName, editor.getIdLong())) {
+                            CounterManager.removeEditor(counterName, editor.getIdLong());
+                            reply(e, editor.getName() + " is no longer an editor of " + counterName + " counter.", true);
                         } else {
-                            e.reply(editor.getName() + " is not currently authorized on " + counterName + " counter.").setEphemeral(true).queue();
+                            reply(e, editor.getName() + " is not currently authorized on " + counterName + " counter.", true);
                         }
                     }
                 }
@@ -151,23 +153,11 @@ public class CounterCommand implements ICommand {
     }
 
     @Override
-    public void handleButtonInteraction(ButtonInteractionEvent e) {
-
-    }
-
-    @Override
-    public void handleStringSelectInteraction(StringSelectInteractionEvent e) {
-
-    }
-
-    @Override
-    public void handleEntitySelectInteraction(EntitySelectInteractionEvent e) {
-
-    }
-
-    @Override
-    public void handleModalInteraction(ModalInteractionEvent e) {
-
+    public void handleAutoComplete(CommandAutoCompleteInteractionEvent e) {
+        if (!e.getFocusedOption().getName().equals("counter")) return;
+        e.replyChoices(CounterManager.suggestCounters(e.getFocusedOption().getValue()).stream()
+                .map(suggestion -> new Command.Choice(suggestion.label(), suggestion.key()))
+                .toList()).queue();
     }
 
 }
@@ -1,8 +1,6 @@
 package dev.supersand24.counters;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import dev.supersand24.SnowflakeSet;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 
@@ -10,7 +8,7 @@ public class CounterData {
     
     public transient String name;
     public int value;
-    public List<String> allowedEditors = new ArrayList<>();
+    public SnowflakeSet allowedEditors = SnowflakeSet.EMPTY;
     public String description;
     public Integer maxValue;
     public Integer minValue;
@@ -21,32 +19,32 @@ public class CounterData {
         
     }
 
-    public CounterData(String name, String description, int initialValue, int minValue, int maxValue, String creator) {
+    public CounterData(String name, String description, int initialValue, int minValue, int maxValue, long creator) {
         this.name = name;
         this.description = description;
         this.value = initialValue;
         this.minValue = minValue;
         this.maxValue = maxValue;
-        this.allowedEditors.add(creator);
+        this.allowedEditors = SnowflakeSet.of(creator);
     }
 
-    public void set(int amount) {
+    public synchronized void set(int amount) {
         value = amount;
         if (maxValue != null) value = Math.min(value, maxValue);
         if (minValue != null) value = Math.max(value, minValue);
     }
 
-    public void increment() {
+    public synchronized void increment() {
         value += incrementAmount;
         if (maxValue != null) value = Math.min(value, maxValue);
     }
 
-    public void decrement() {
+    public synchronized void decrement() {
         value -= decrementAmount;
         if (minValue != null) value = Math.max(value, minValue);
     }
 
-    public MessageEmbed toEmbed() {
+    public synchronized MessageEmbed toEmbed() {
         EmbedBuilder embed = new EmbedBuilder();
         embed.setTitle(name);
         embed.setDescription(description);
@@ -15,6 +15,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import dev.supersand24.AutocompleteIndex;
 import dev.supersand24.DataStore;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import org.slf4j.Logger;
@@ -24,17 +25,36 @@ public class CounterManager {
 
     private static final Logger log = LoggerFactory.getLogger(CounterManager.class);
 
-    public static void createCounter(String name, String description, int initialValue, int minValue, int maxValue, String userId) {
+    private static volatile AutocompleteIndex<String> autocomplete;
+
+    /**
+     * The names of every counter to suggest, built from the loaded counters the first time it is needed.
+     */
+    private static AutocompleteIndex<String> getAutocomplete() {
+        if (autocomplete != null) return autocomplete;
+        synchronized (CounterManager.class) {
+            if (autocomplete != null) return autocomplete;
+            AutocompleteIndex<String> index = new AutocompleteIndex<>();
+            for (String name : getCounterNames())
+                index.put(name, name, 0);
+            autocomplete = index;
+            return index;
+        }
+    }
+
+    public static void createCounter(String name, String description, int initialValue, int minValue, int maxValue, long userId) {
         Map<String, CounterData> counters = DataStore.get("counters");
         CounterData counter = new CounterData(name, description, initialValue, minValue, maxValue, userId);
         counters.put(name, counter);
-        DataStore.markDirty("counters");
+        getAutocomplete().put(name, name, System.currentTimeMillis());
+        DataStore.markDirty("counters", name);
     }
 
     public static void deleteCounter(String key) {
         Map<String, CounterData> counters = DataStore.get("counters");
         counters.remove(key);
-        DataStore.markDirty("counters");
+        getAutocomplete().remove(key);
+        DataStore.markDirty("counters", key);
     }
 
     public static MessageEmbed getCounterEmbed(String key) {
@@ -44,8 +64,11 @@ public class CounterManager {
 
     public static void setDescription(String key, String description) {
         Map<String, CounterData> counters = DataStore.get("counters");
-        counters.get(key).description = description;
-        DataStore.markDirty("counters");
+        CounterData counter = counters.get(key);
+        synchronized (counter) {
+            counter.description = description;
+        }
+        DataStore.markDirty("counters", key);
     }
 
     public static void increment(String key) {
@@ -53,7 +76,7 @@ public class CounterManager {
         CounterData counter = counters.get(key);
         if (counter != null) {
             counter.increment();
-            DataStore.markDirty("counters");
+            DataStore.markDirty("counters", key);
         } else {
             log.error("Counter " + key + " does not exist.");
         }
@@ -64,7 +87,7 @@ public class CounterManager {
         CounterData counter = counters.get(key);
         if (counter != null) {
             counter.decrement();
-            DataStore.markDirty("counters");
+            DataStore.markDirty("counters", key);
         } else {
             log.error("Counter " + key + " does not exist.");
         }
@@ -74,8 +97,10 @@ public class CounterManager {
         Map<String, CounterData> counters = DataStore.get("counters");
         CounterData counter = counters.get(key);
         if (counter != null) {
-            counter.value = value;
-            DataStore.markDirty("counters");
+            synchronized (counter) {
+                counter.value = value;
+            }
+            DataStore.markDirty("counters", key);
         } else {
             log.error("Counter " + key + " does not exist.");
         }
@@ -96,8 +121,10 @@ public class CounterManager {
         Map<String, CounterData> counters = DataStore.get("counters");
         CounterData counter = counters.get(key);
         if (counter != null) {
-            counter.minValue = minValue;
-            DataStore.markDirty("counters");
+            synchronized (counter) {
+                counter.minValue = minValue;
+            }
+            DataStore.markDirty("counters", key);
         } else {
             log.error("Counter " + key + " does not exist.");
         }
@@ -107,46 +134,65 @@ public class CounterManager {
         Map<String, CounterData> counters = DataStore.get("counters");
         CounterData counter = counters.get(key);
         if (counter != null) {
-            counter.maxValue = maxValue;
-            DataStore.markDirty("counters");
+            synchronized (counter) {
+                counter.maxValue = maxValue;
+            }
+            DataStore.markDirty("counters", key);
         } else {
             log.error("Counter " + key + " does not exist.");
         }
     }
 
-    public static boolean canEdit(String key, String userId) {
+    public static boolean canEdit(String key, long userId) {
         Map<String, CounterData> counters = DataStore.get("counters");
         CounterData counter = counters.get(key);
         if (counter != null) {
-            return counter.allowedEditors.contains(userId);
+            synchronized (counter) {
+                return counter.allowedEditors.contains(userId);
+            }
         } else {
             log.error("Counter " + key + " does not exist.");
             return false;
         }
     }
 
-    public static void addEditor(String key, String userId) {
+    public static void addEditor(String key, long userId) {
         Map<String, CounterData> counters = DataStore.get("counters");
         CounterData counter = counters.get(key);
         if (counter != null) {
-            counter.allowedEditors.add(userId);
-            DataStore.markDirty("counters");
+            synchronized (counter) {
+                counter.allowedEditors = counter.allowedEditors.with(userId);
+            }
+            DataStore.markDirty("counters", key);
         } else {
             log.error("Counter " + key + " does not exist.");
         }
     }
 
-    public static void removeEditor(String key, String userId) {
+    public static void removeEditor(String key, long userId) {
         Map<String, CounterData> counters = DataStore.get("counters");
         CounterData counter = counters.get(key);
         if (counter != null) {
-            counter.allowedEditors.remove(userId);
-            DataStore.markDirty("counters");
+            synchronized (counter) {
+                counter.allowedEditors = counter.allowedEditors.without(userId);
+            }
+            DataStore.markDirty("counters", key);
         } else {
             log.error("Counter " + key + " does not exist.");
         }
     }
 
+    /**
+     * Suggests counters by name, the ones used most and most recently first.
+     */
+    public static List<AutocompleteIndex.Suggestion<String>> suggestCounters(String query) {
+        return getAutocomplete().search(query);
+    }
+
+    public static void recordUse(String key) {
+        getAutocomplete().recordUse(key);
+    }
+
     public static Set<String> getCounterNames() {
         Map<String, CounterData> counters = DataStore.get("counters");
         return counters.keySet();
@@ -1,15 +1,17 @@
 package dev.supersand24.events;
 
-import dev.supersand24.DataStore;
+import dev.supersand24.ComponentId;
+import dev.supersand24.ComponentRouter;
 import dev.supersand24.ICommand;
+import dev.supersand24.expenses.ExpenseManager;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
 import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.Command;
 import net.dv8tion.jda.api.interactions.commands.DefaultMemberPermissions;
 import net.dv8tion.jda.api.interactions.commands.OptionMapping;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
@@ -18,7 +20,6 @@ import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
 import net.dv8tion.jda.api.interactions.modals.Modal;
 import net.dv8tion.jda.api.interactions.modals.ModalMapping;
-import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
 import net.dv8tion.jda.api.utils.messages.MessageCreateData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +30,11 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+
+import static dev.supersand24.InteractionDispatcher.*;
 
 public class EventCommand implements ICommand {
 
@@ -45,7 +51,7 @@ public class EventCommand implements ICommand {
                                 .addOption(OptionType.STRING, "name", "The name of the new event", true),
                         new SubcommandData("list", "List all created events."),
                         new SubcommandData("edit", "Edit the details of an existing event.")
-                                .addOption(OptionType.INTEGER, "id", "The ID of the event to edit.", true)
+                                .addOption(OptionType.INTEGER, "id", "The ID of the event to edit.", true, true)
                                 .addOption(OptionType.STRING, "name", "The new name for the event.", false)
                                 .addOption(OptionType.STRING, "start-date", "The event's start date (e.g., 03/27/2025).", false)
                                 .addOption(OptionType.STRING, "end-date", "The event's end date (e.g., 03/30/2025).", false)
@@ -53,6 +59,8 @@ public class EventCommand implements ICommand {
                                 .addOption(OptionType.CHANNEL, "channel", "The channel for event discussions.", false)
                                 .addOption(OptionType.STRING, "address", "The physical address of the event venue.", false)
                                 .addOption(OptionType.STRING, "omnidex-link", "The event's omnidex link.", false)
+                                .addOption(OptionType.STRING, "currency", "The currency the event's amounts are in (e.g., EUR).", false)
+                                .addOption(OptionType.STRING, "locale", "How the event's amounts are written (e.g., de-DE).", false)
                 )
                 .setDefaultPermissions(DefaultMemberPermissions.enabledFor(Permission.MANAGE_EVENTS));
     }
@@ -63,15 +71,16 @@ public class EventCommand implements ICommand {
             case "create" -> {
                 String eventName = e.getOption("name").getAsString();
                 EventManager.createEvent(eventName);
-                e.reply("Created new event: **" + eventName + "**").setEphemeral(true).queue();
+                reply(e, "Created new event: **" + eventName + "**", true);
             }
             case "list" -> {
-                e.deferReply().queue();
-                MessageCreateData messageData = EventManager.generateListMessage(e.getUser().getId(), 0);
+                deferReply(e, false);
+                MessageCreateData messageData = EventManager.generateListMessage(e.getUser().getId());
                 e.getHook().sendMessage(messageData).useComponentsV2().queue();
             }
             case "edit" -> {
                 long eventId = e.getOption("id").getAsLong();
+                EventManager.recordUse(eventId);
 
                 StringBuilder response = new StringBuilder("## Updated Event #" + eventId + "\n");
                 boolean changed = false;
@@ -88,7 +97,7 @@ public class EventCommand implements ICommand {
                 if (startDateOpt != null) {
                     long timestamp = parseDateToEpochMilli(startDateOpt.getAsString());
                     if (timestamp == -1) {
-                        e.reply("Invalid start date format. Please use `MM/DD/YYYY`.").setEphemeral(true).queue();
+                        reply(e, "Invalid start date format. Please use `MM/DD/YYYY`.", true);
                         return;
                     }
                     EventManager.setStartDate(eventId, timestamp);
@@ -100,7 +109,7 @@ public class EventCommand implements ICommand {
                 if (endDateOpt != null) {
                     long timestamp = parseDateToEpochMilli(endDateOpt.getAsString());
                     if (timestamp == -1) {
-                        e.reply("Invalid end date format. Please use `MM/DD/YYYY`.").setEphemeral(true).queue();
+                        reply(e, "Invalid end date format. Please use `MM/DD/YYYY`.", true);
                         return;
                     }
                     EventManager.setEndDate(eventId, timestamp);
@@ -140,208 +149,177 @@ public class EventCommand implements ICommand {
                     changed = true;
                 }
 
-                if (changed) {
-                    DataStore.markDirty("events");
-                    e.reply(response.toString()).setEphemeral(true).queue();
-                } else {
-                    e.reply("No changes were provided.").setEphemeral(true).queue();
+                OptionMapping currencyOpt = e.getOption("currency");
+                if (currencyOpt != null) {
+                    Currency currency;
+                    try {
+                        currency = Currency.getInstance(currencyOpt.getAsString().trim().toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException ex) {
+                        reply(e, "Unknown currency. Please use a three letter code like `EUR` or `JPY`.", true);
+                        return;
+                    }
+                    if (!ExpenseManager.canChangeEventCurrency(eventId, currency)) {
+                        reply(e, "This event already has expenses or debts, so its currency can't be changed anymore.", true);
+                        return;
+                    }
+                    EventManager.setCurrency(eventId, currency);
+                    response.append("- Currency set to: ").append(currency.getCurrencyCode()).append("\n");
+                    changed = true;
                 }
-            }
-        }
-    }
-
-    @Override
-    public void handleButtonInteraction(ButtonInteractionEvent e) {
-        String[] parts = e.getComponentId().split(":");
-        String prefix = parts[1];
-
-        log.info("Processing " + prefix + " button interaction.");
-
-        String authorId = parts[2];
-
-        if (!e.getUser().getId().equals(authorId)) {
-            e.reply("You cannot use these buttons.").setEphemeral(true).queue();
-            return;
-        }
 
-        if (prefix.equals("edit")) {
-
-            int index = Integer.parseInt(parts[3]);
-
-            e.editComponents(EventManager.generateEditContainer(index, authorId))
-                    .useComponentsV2()
-                    .queue();
-
-        }
-        else if (prefix.startsWith("edit-")) {
-
-            int index = Integer.parseInt(parts[3]);
-
-            switch (prefix) {
-                case "edit-name" -> e.replyModal(EventManager.generateEditNameModal(index)).queue();
-                case "edit-dates" -> e.replyModal(EventManager.generateEditDatesModal(index)).queue();
-                case "edit-address" -> e.replyModal(EventManager.generateEditAddressModal(index)).queue();
-                case "edit-omnidex" -> e.replyModal(EventManager.generateEditOmnidexModal(index)).queue();
-                case "edit-delete" -> {
-                    Modal modal = EventManager.generateDeleteEventModel(index);
-                    if (modal == null)
-                        e.reply("Could not delete non existing event!").setEphemeral(true).queue();
-                    else
-                        e.replyModal(modal).queue();
-                }
-                case "edit-view" -> e.editComponents(EventManager.buildDetailContainer(index, authorId))
-                        .useComponentsV2()
-                        .queue();
-                case "edit-view-list" ->
-                        e.editComponents(EventManager.buildListContainer(EventManager.getAllEvents(), 0, authorId))
-                                .useComponentsV2()
-                                .queue();
-                default -> {
-                    log.error("Unexpected Event Edit Button Pressed!");
-                    e.reply("Something went wrong!").setEphemeral(true).queue();
+                OptionMapping localeOpt = e.getOption("locale");
+                if (localeOpt != null) {
+                    Locale locale = Locale.forLanguageTag(localeOpt.getAsString().trim());
+                    if (locale.getLanguage().isEmpty()) {
+                        reply(e, "Unknown locale. Please use a language tag like `de-DE` or `ja-JP`.", true);
+                        return;
+                    }
+                    EventManager.setLocale(eventId, locale);
+                    response.append("- Locale set to: ").append(locale.getDisplayName(Locale.US)).append("\n");
+                    changed = true;
                 }
-            }
-
-        }
-        else {
 
-            e.deferEdit().queue();
-
-            MessageCreateData data = new MessageCreateBuilder().setContent("No events.").build();
-
-            switch (prefix) {
-                case "list-prev", "list-next" -> {
-                    int currentPage = Integer.parseInt(parts[3]);
-                    int newPage = prefix.equals("list-next") ? currentPage + 1 : currentPage - 1;
-                    data = EventManager.generateListMessage(authorId, newPage);
-                }
-                case "list-zoom" -> {
-                    int index = Integer.parseInt(parts[3]);
-                    data = EventManager.generateDetailMessage(authorId, index);
-                }
-                case "detail-prev", "detail-next" -> {
-                    int currentIndex = Integer.parseInt(parts[3]);
-                    int newIndex = prefix.equals("detail-next") ? currentIndex + 1 : currentIndex - 1;
-                    data = EventManager.generateDetailMessage(authorId, newIndex);
+                if (changed) {
+                    reply(e, response.toString(), true);
+                } else {
+                    reply(e, "No changes were provided.", true);
                 }
-                case "detail-back" -> data = EventManager.generateListMessage(authorId, 0);
             }
-
-            e.getHook().editOriginalComponents(data.getComponents())
-                    .useComponentsV2()
-                    .queue();
         }
-
-
     }
 
     @Override
-    public void handleStringSelectInteraction(StringSelectInteractionEvent e) {
-        String[] parts = e.getComponentId().split(":");
-        String prefix = parts[1];
-        String authorId = parts.length > 2 ? parts[2] : "";
-
-        if (prefix.equals("list-zoom")) {
-            if (!e.getUser().getId().equals(authorId)) {
-                e.reply("You cannot use these buttons.").setEphemeral(true).queue();
-                return;
-            }
-
-            e.deferEdit().queue();
-
-            int index = Integer.parseInt(e.getValues().getFirst());
-            MessageCreateData data = EventManager.generateDetailMessage(authorId, index);
-            e.getHook().editOriginalEmbeds(data.getEmbeds())
-                    .setComponents(data.getComponents())
-                    .queue();
-        }
+    public void handleAutoComplete(CommandAutoCompleteInteractionEvent e) {
+        if (!e.getFocusedOption().getName().equals("id")) return;
+        e.replyChoices(EventManager.suggestEvents(e.getFocusedOption().getValue()).stream()
+                .map(suggestion -> new Command.Choice(suggestion.label(), suggestion.key()))
+                .toList()).queue();
     }
 
     @Override
-    public void handleEntitySelectInteraction(EntitySelectInteractionEvent e) {
+    public void registerComponents(ComponentRouter router) {
+        router.button("event", "edit", (e, id) ->
+                editComponents(e, EventManager.generateEditContainer(id.getInt(1), id.getString(0)))).forAuthor().args(2);
+        router.button("event", "edit-name", (e, id) -> e.replyModal(EventManager.generateEditNameModal(id.getInt(1))).queue()).opensModal().forAuthor().args(2);
+        router.button("event", "edit-dates", (e, id) -> e.replyModal(EventManager.generateEditDatesModal(id.getInt(1))).queue()).opensModal().forAuthor().args(2);
+        router.button("event", "edit-address", (e, id) -> e.replyModal(EventManager.generateEditAddressModal(id.getInt(1))).queue()).opensModal().forAuthor().args(2);
+        router.button("event", "edit-omnidex", (e, id) -> e.replyModal(EventManager.generateEditOmnidexModal(id.getInt(1))).queue()).opensModal().forAuthor().args(2);
+        router.button("event", "edit-delete", (e, id) -> {
+            Modal modal = EventManager.generateDeleteEventModel(id.getInt(1));
+            if (modal == null)
+                reply(e, "Could not delete non existing event!", true);
+            else
+                e.replyModal(modal).queue();
+        }).opensModal().forAuthor().args(2);
+        router.button("event", "edit-view", (e, id) ->
+                editComponents(e, EventManager.buildDetailContainer(id.getInt(1), id.getString(0)))).forAuthor().args(2);
+        router.button("event", "edit-view-list", (e, id) ->
+                editComponents(e, EventManager.buildListContainer(id.getString(0)))).forAuthor();
+
+        router.button("event", "list-prev", (e, id) ->
+                editMessage(e, EventManager.generateListMessage(id.getString(0), id.getInt(1), id.getLong(2), false))).forAuthor().args(3);
+        router.button("event", "list-next", (e, id) ->
+                editMessage(e, EventManager.generateListMessage(id.getString(0), id.getInt(1), id.getLong(2), true))).forAuthor().args(3);
+        router.button("event", "list-zoom", (e, id) ->
+                editMessage(e, EventManager.generateDetailMessage(id.getString(0), id.getInt(1)))).forAuthor().args(2);
+        router.button("event", "detail-prev", (e, id) ->
+                editMessage(e, EventManager.generateDetailMessage(id.getString(0), id.getInt(1) - 1))).forAuthor().args(2);
+        router.button("event", "detail-next", (e, id) ->
+                editMessage(e, EventManager.generateDetailMessage(id.getString(0), id.getInt(1) + 1))).forAuthor().args(2);
+        router.button("event", "detail-back", (e, id) ->
+                editMessage(e, EventManager.generateListMessage(id.getString(0)))).forAuthor();
+
+        router.entitySelect("event", "edit-channel", (e, id) -> {
+            EventManager.setChannelId(id.getLong(1), e.getMentions().getChannels().getFirst().getIdLong());
+            reply(e, "Channel updated successfully!", true);
+        }).forAuthor().args(2);
+        router.entitySelect("event", "edit-role", (e, id) -> {
+            EventManager.setRoleId(id.getLong(1), e.getMentions().getRoles().getFirst().getIdLong());
+            reply(e, "Role updated successfully!", true);
+        }).forAuthor().args(2);
+
+        for (String action : List.of("edit-name", "edit-dates", "edit-address", "edit-omnidex", "edit-delete"))
+            router.modal("event", action, this::editEvent).args(1);
+    }
 
+    private void editMessage(ButtonInteractionEvent e, MessageCreateData data) {
+        editComponents(e, data.getComponents());
     }
 
-    @Override
-    public void handleModalInteraction(ModalInteractionEvent e) {
-        String[] parts = e.getModalId().split(":");
-        String prefix = parts[1];
-
-        if (prefix.startsWith("edit-")) {
-            long eventIndex = Long.parseLong(parts[2]);
-
-            switch (prefix) {
-                case "edit-name" -> {
-                    boolean hasChanged = false;
-                    ModalMapping name = e.getValue("name");
-                    if (name != null) {
-                        EventManager.setEventName(eventIndex, name.getAsString());
-                        hasChanged = true;
-                    }
-                    e.reply(hasChanged ? "Name updated successfully!" : "No changes were made.").setEphemeral(true).queue();
-                }
-                case "edit-dates" -> {
+    private void editEvent(ModalInteractionEvent e, ComponentId id) {
+        long eventIndex = id.getLong(0);
 
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-                    boolean hasChanged = false;
+        switch (id.getAction()) {
+            case "edit-name" -> {
+                boolean hasChanged = false;
+                ModalMapping name = e.getValue("name");
+                if (name != null) {
+                    EventManager.setEventName(eventIndex, name.getAsString());
+                    hasChanged = true;
+                }
+                reply(e, hasChanged ? "Name updated successfully!" : "No changes were made.", true);
+            }
+            case "edit-dates" -> {
 
-                    ModalMapping startDateMapping = e.getValue("start-date");
-                    Long newStartDate = parseDateFromModal(startDateMapping, formatter);
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+                boolean hasChanged = false;
 
-                    if (newStartDate == null && startDateMapping != null && !startDateMapping.getAsString().isEmpty()) {
-                        e.reply("Invalid start date format. Please use **MM/DD/YYYY**.").setEphemeral(true).queue();
-                        return;
-                    }
+                ModalMapping startDateMapping = e.getValue("start-date");
+                Long newStartDate = parseDateFromModal(startDateMapping, formatter);
 
-                    if (newStartDate != null) {
-                        EventManager.setStartDate(eventIndex, newStartDate);
-                        hasChanged = true;
-                    }
+                if (newStartDate == null && startDateMapping != null && !startDateMapping.getAsString().isEmpty()) {
+                    reply(e, "Invalid start date format. Please use **MM/DD/YYYY**.", true);
+                    return;
+                }
 
-                    ModalMapping endDateMapping = e.getValue("end-date");
-                    Long newEndDate = parseDateFromModal(endDateMapping, formatter);
+                if (newStartDate != null) {
+                    EventManager.setStartDate(eventIndex, newStartDate);
+                    hasChanged = true;
+                }
 
-                    if (newEndDate == null && endDateMapping != null && !endDateMapping.getAsString().isEmpty()) {
-                        e.reply("Invalid end date format. Please use **MM/DD/YYYY**.").setEphemeral(true).queue();
-                        return;
-                    }
+                ModalMapping endDateMapping = e.getValue("end-date");
+                Long newEndDate = parseDateFromModal(endDateMapping, formatter);
 
-                    if (newEndDate != null) {
-                        EventManager.setEndDate(eventIndex, newEndDate);
-                        hasChanged = true;
-                    }
+                if (newEndDate == null && endDateMapping != null && !endDateMapping.getAsString().isEmpty()) {
+                    reply(e, "Invalid end date format. Please use **MM/DD/YYYY**.", true);
+                    return;
+                }
 
-                    e.reply(hasChanged ? "Dates updated successfully!" : "No changes were made.").setEphemeral(true).queue();
+                if (newEndDate != null) {
+                    EventManager.setEndDate(eventIndex, newEndDate);
+                    hasChanged = true;
                 }
-                case "edit-address" -> {
-                    boolean hasChanged = false;
-                    ModalMapping address = e.getValue("address");
-                    if (address != null) {
-                        EventManager.setAddress(eventIndex, address.getAsString());
-                        hasChanged = true;
-                    }
-                    e.reply(hasChanged ? "Address updated successfully!" : "No changes were made.").setEphemeral(true).queue();
+
+                reply(e, hasChanged ? "Dates updated successfully!" : "No changes were made.", true);
+            }
+            case "edit-address" -> {
+                boolean hasChanged = false;
+                ModalMapping address = e.getValue("address");
+                if (address != null) {
+                    EventManager.setAddress(eventIndex, address.getAsString());
+                    hasChanged = true;
                 }
-                case "edit-omnidex" -> {
-                    boolean hasChanged = false;
-                    ModalMapping omnidex = e.getValue("omnidex");
-                    if (omnidex != null) {
-                        EventManager.setOmnidexLink(eventIndex, omnidex.getAsString());
-                        hasChanged = true;
-                    }
-                    e.reply(hasChanged ? "Omnidex updated successfully!" : "No changes were made.").setEphemeral(true).queue();
+                reply(e, hasChanged ? "Address updated successfully!" : "No changes were made.", true);
+            }
+            case "edit-omnidex" -> {
+                boolean hasChanged = false;
+                ModalMapping omnidex = e.getValue("omnidex");
+                if (omnidex != null) {
+                    EventManager.setOmnidexLink(eventIndex, omnidex.getAsString());
+                    hasChanged = true;
                 }
-                case "edit-delete" -> {
-                    ModalMapping name = e.getValue("name");
-                    if (name == null) { e.reply("There was an issue deleting the event!").setEphemeral(true).queue(); return; }
-                    if (name.getAsString().equals(EventManager.getEventName(eventIndex))) {
-                        if (EventManager.deleteEvent(eventIndex))
-                            e.reply(name.getAsString() + " was deleted!").setEphemeral(true).queue();
-                        else
-                            e.reply("There was an issue deleting the event!").setEphemeral(true).queue();
-                    }
-                    else e.reply("That is not the correct event name!").setEphemeral(true).queue();
+                reply(e, hasChanged ? "Omnidex updated successfully!" : "No changes were made.", true);
+            }
+            case "edit-delete" -> {
+                ModalMapping name = e.getValue("name");
+                if (name == null) { reply(e, "There was an issue deleting the event!", true); return; }
+                if (name.getAsString().equals(EventManager.getEventName(eventIndex))) {
+                    if (EventManager.deleteEvent(eventIndex))
+                        reply(e, name.getAsString() + " was deleted!", true);
+                    else
+                        reply(e, "There was an issue deleting the event!", true);
                 }
+                else reply(e, "That is not the correct event name!", true);
             }
         }
     }
@@ -12,6 +12,10 @@ public class EventData implements IData {
     private long channelId;
     private String address;
     private String omnidexLink;
+    /** ISO 4217 code of the currency the event's amounts are in, or null for US dollars. */
+    private String currency;
+    /** Language tag of the locale amounts are written in, or null for the US. */
+    private String locale;
 
     public EventData(String name) {
         this.name = name;
@@ -20,18 +24,22 @@ public class EventData implements IData {
     public long getId() { return eventId; }
     @Override public void setId(long id) { eventId = id; }
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public synchronized void setName(String name) { this.name = name; }
     public long getStartDate() { return startDate; }
-    public void setStartDate(long startDate) { this.startDate = startDate; }
+    public synchronized void setStartDate(long startDate) { this.startDate = startDate; }
     public long getEndDate() { return endDate; }
-    public void setEndDate(long endDate) { this.endDate = endDate; }
+    public synchronized void setEndDate(long endDate) { this.endDate = endDate; }
     public long getRoleId() { return roleId; }
-    public void setRoleId(long roleId) { this.roleId = roleId; }
+    public synchronized void setRoleId(long roleId) { this.roleId = roleId; }
     public long getChannelId() { return channelId; }
-    public void setChannelId(long channelId) { this.channelId = channelId; }
+    public synchronized void setChannelId(long channelId) { this.channelId = channelId; }
     public String getAddress() { return address; }
-    public void setAddress(String address) { this.address = address; }
+    public synchronized void setAddress(String address) { this.address = address; }
     public String getOmnidexLink() { return omnidexLink; }
-    public void setOmnidexLink(String omnidexLink) { this.omnidexLink = omnidexLink; }
+    public synchronized void setOmnidexLink(String omnidexLink) { this.omnidexLink = omnidexLink; }
+    public String getCurrency() { return currency; }
+    public synchronized void setCurrency(String currency) { this.currency = currency; }
+    public String getLocale() { return locale; }
+    public synchronized void setLocale(String locale) { this.locale = locale; }
 
 }
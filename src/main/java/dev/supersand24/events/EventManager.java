@@ -1,8 +1,14 @@
 package dev.supersand24.events;
 
 import dev.supersand24.ArisannaBot;
+import dev.supersand24.AutocompleteIndex;
+import dev.supersand24.ComponentId;
+import dev.supersand24.CurrencyUtils;
 import dev.supersand24.DataPartition;
 import dev.supersand24.DataStore;
+import dev.supersand24.LongMap;
+import dev.supersand24.Page;
+import dev.supersand24.RenderCache;
 import net.dv8tion.jda.api.components.actionrow.ActionRow;
 import net.dv8tion.jda.api.components.buttons.Button;
 import net.dv8tion.jda.api.components.buttons.ButtonStyle;
@@ -25,10 +31,12 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.Currency;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 public class EventManager {
 
@@ -36,6 +44,11 @@ public class EventManager {
 
     private static final String DATA_STORE_NAME = "events";
 
+    private static final int ITEMS_PER_PAGE = 5;
+
+    private static volatile NavigableSet<Long> eventIds;
+    private static volatile AutocompleteIndex<Long> autocomplete;
+
     /**
      * Creates a new event and saves it to the data store.
      *
@@ -44,14 +57,76 @@ public class EventManager {
     public static long createEvent(String name) {
         DataPartition<EventData> eventPartition = DataStore.get(DATA_STORE_NAME);
         long newId = eventPartition.getAndIncrementId();
-        Map<Long, EventData> events = eventPartition.getData();
+        LongMap<EventData> events = eventPartition.getData();
         EventData event = new EventData(name);
         event.setId(newId);
         events.put(newId, event);
-        DataStore.markDirty(DATA_STORE_NAME);
+        getEventIds().add(newId);
+        suggest(event);
+        DataStore.markDirty(DATA_STORE_NAME, newId);
         return event.getId();
     }
 
+    /**
+     * The IDs of every event in order, built from the loaded events the first time it is needed.
+     */
+    private static NavigableSet<Long> getEventIds() {
+        if (eventIds != null) return eventIds;
+        synchronized (EventManager.class) {
+            if (eventIds != null) return eventIds;
+            DataPartition<EventData> eventPartition = DataStore.get(DATA_STORE_NAME);
+            NavigableSet<Long> ids = new ConcurrentSkipListSet<>(eventPartition.getData().keySet());
+            eventIds = ids;
+            return ids;
+        }
+    }
+
+    /**
+     * The events to suggest, built from the loaded events the first time it is needed.
+     * Until they are used, upcoming events rank first and past ones rank lower the longer ago they started.
+     */
+    private static AutocompleteIndex<Long> getAutocomplete() {
+        if (autocomplete != null) return autocomplete;
+        synchronized (EventManager.class) {
+            if (autocomplete != null) return autocomplete;
+            AutocompleteIndex<Long> index = new AutocompleteIndex<>();
+            DataPartition<EventData> eventPartition = DataStore.get(DATA_STORE_NAME);
+            eventPartition.getData().forEachEntry((id, event) -> index.put(id, label(event), event.getStartDate()));
+            autocomplete = index;
+            return index;
+        }
+    }
+
+    private static void suggest(EventData event) {
+        getAutocomplete().put(event.getId(), label(event), event.getStartDate());
+    }
+
+    private static String label(EventData event) {
+        return event.getName() + " #" + event.getId();
+    }
+
+    /**
+     * Suggests events by name or ID, the ones used most and most recently first.
+     */
+    public static List<AutocompleteIndex.Suggestion<Long>> suggestEvents(String query) {
+        return getAutocomplete().search(query);
+    }
+
+    public static void recordUse(long index) {
+        getAutocomplete().recordUse(index);
+    }
+
+    private static List<EventData> resolve(Collection<Long> ids) {
+        DataPartition<EventData> eventPartition = DataStore.get(DATA_STORE_NAME);
+        LongMap<EventData> events = eventPartition.getData();
+        List<EventData> result = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            EventData event = events.get(id);
+            if (event != null) result.add(event);
+        }
+        return result;
+    }
+
     /**
      * Retrieves a specific event by its ID.
      * @param eventId The ID of the event to find.
@@ -67,17 +142,18 @@ public class EventManager {
      * @return A sorted list of all events.
      */
     public static List<EventData> getAllEvents() {
-        DataPartition<EventData> eventPartition = DataStore.get(DATA_STORE_NAME);
-        return new ArrayList<>(eventPartition.getData().values())
-                .stream()
-                .sorted(Comparator.comparing(EventData::getId))
-                .collect(Collectors.toList());
+        return resolve(getEventIds());
     }
 
     public static void setEventName(long index, String newName) {
         EventData event = getEventById(index);
         event.setName(newName);
-        DataStore.markDirty(DATA_STORE_NAME);
+        suggest(event);
+        DataStore.markDirty(DATA_STORE_NAME, index);
+    }
+
+    public static boolean eventExists(long index) {
+        return getEventById(index) != null;
     }
 
     public static String getEventName(long index) {
@@ -88,19 +164,20 @@ public class EventManager {
     public static void setStartDate(long index, long newStartDate) {
         EventData event = getEventById(index);
         event.setStartDate(newStartDate);
-        DataStore.markDirty(DATA_STORE_NAME);
+        suggest(event);
+        DataStore.markDirty(DATA_STORE_NAME, index);
     }
 
     public static void setEndDate(long index, long newEndDate) {
         EventData event = getEventById(index);
         event.setEndDate(newEndDate);
-        DataStore.markDirty(DATA_STORE_NAME);
+        DataStore.markDirty(DATA_STORE_NAME, index);
     }
 
     public static void setRoleId(long index, long newRoleId) {
         EventData event = getEventById(index);
         event.setRoleId(newRoleId);
-        DataStore.markDirty(DATA_STORE_NAME);
+        DataStore.markDirty(DATA_STORE_NAME, index);
     }
 
     public static Role getRole(long index) {
@@ -111,47 +188,107 @@ public class EventManager {
     public static void setChannelId(long index, long newChannelId) {
         EventData event = getEventById(index);
         event.setChannelId(newChannelId);
-        DataStore.markDirty(DATA_STORE_NAME);
+        DataStore.markDirty(DATA_STORE_NAME, index);
     }
 
     public static void setAddress(long index, String newAddress) {
         EventData event = getEventById(index);
         event.setAddress(newAddress);
-        DataStore.markDirty(DATA_STORE_NAME);
+        DataStore.markDirty(DATA_STORE_NAME, index);
     }
 
     public static void setOmnidexLink(long index, String newOmnidexLink) {
         EventData event = getEventById(index);
         event.setOmnidexLink(newOmnidexLink);
-        DataStore.markDirty(DATA_STORE_NAME);
+        DataStore.markDirty(DATA_STORE_NAME, index);
+    }
+
+    /**
+     * Changes the currency the event's amounts are in. Amounts already recorded aren't converted, so check
+     * {@link dev.supersand24.expenses.ExpenseManager#canChangeEventCurrency(long, Currency)} first.
+     */
+    public static void setCurrency(long index, Currency currency) {
+        EventData event = getEventById(index);
+        event.setCurrency(currency.getCurrencyCode());
+        DataStore.markDirty(DATA_STORE_NAME, index);
+    }
+
+    public static void setLocale(long index, Locale locale) {
+        EventData event = getEventById(index);
+        event.setLocale(locale.toLanguageTag());
+        DataStore.markDirty(DATA_STORE_NAME, index);
+    }
+
+    /**
+     * Gets the format for amounts of the event's expenses and debts, which are in the event's currency.
+     * Events that don't set a currency or locale fall back to US dollars written the US way.
+     */
+    public static CurrencyUtils.MoneyFormat getMoneyFormat(long index) {
+        EventData event = getEventById(index);
+        if (event == null || event.getCurrency() == null && event.getLocale() == null) return CurrencyUtils.USD;
+
+        Currency currency = event.getCurrency() == null ? CurrencyUtils.USD.getCurrency() : Currency.getInstance(event.getCurrency());
+        Locale locale = event.getLocale() == null ? Locale.US : Locale.forLanguageTag(event.getLocale());
+        return CurrencyUtils.getFormat(currency, locale);
     }
 
     public static boolean deleteEvent(long index) {
         EventData event = getEventById(index);
         if (event == null) return false;
         DataPartition<EventData> eventPartition = DataStore.get(DATA_STORE_NAME);
-        Map<Long, EventData> events = eventPartition.getData();
+        LongMap<EventData> events = eventPartition.getData();
         events.remove(index);
-        DataStore.markDirty(DATA_STORE_NAME);
+        getEventIds().remove(index);
+        getAutocomplete().remove(index);
+        DataStore.markDirty(DATA_STORE_NAME, index);
         return true;
     }
 
-    public static MessageCreateData generateListMessage(String authorId, int page) {
-        List<EventData> events = EventManager.getAllEvents();
-        if (events.isEmpty()) {
-            return new MessageCreateBuilder().setContent("No events found matching criteria.").build();
-        }
+    /**
+     * Builds the first page of the event list, oldest first.
+     */
+    public static MessageCreateData generateListMessage(String authorId) {
+        if (getEventIds().isEmpty()) return generateEmptyListMessage();
+        return generateListMessage(buildListContainer(authorId));
+    }
+
+    /**
+     * Builds the page of the event list next to the one the cursor came from.
+     * @param page The number of the page being turned to, only used for display.
+     * @param cursor The last event of the current page when going forward, or its first event when going back.
+     * @param forward Whether to turn to the next page rather than the previous one.
+     */
+    public static MessageCreateData generateListMessage(String authorId, int page, long cursor, boolean forward) {
+        if (getEventIds().isEmpty()) return generateEmptyListMessage();
+
+        return generateListMessage(RenderCache.get("event-list:" + page + ":" + cursor + ":" + forward, authorId, () -> {
+            NavigableSet<Long> index = getEventIds();
+            Page<Long> events = forward ? Page.after(index, cursor, ITEMS_PER_PAGE) : Page.before(index, cursor, ITEMS_PER_PAGE);
+            return buildListContainer(events, events.hasPrevious() ? Math.max(page, 2) : 1, RenderCache.AUTHOR);
+        }, DATA_STORE_NAME));
+    }
+
+    private static MessageCreateData generateEmptyListMessage() {
+        return new MessageCreateBuilder().setContent("No events found matching criteria.").build();
+    }
+
+    private static MessageCreateData generateListMessage(Container container) {
         return new MessageCreateBuilder()
-                .addComponents(buildListContainer(events, page, authorId))
+                .addComponents(container)
                 .useComponentsV2()
                 .build();
     }
 
-    public static Container buildListContainer(List<EventData> events, int page, String authorId) {
-        final int itemsPerPage = 5;
-        int totalPages = (int) Math.ceil((double) events.size() / itemsPerPage);
-        int startIndex = page * itemsPerPage;
+    /**
+     * Builds the first page of the list of all events.
+     */
+    public static Container buildListContainer(String authorId) {
+        return RenderCache.get("event-list", authorId,
+                () -> buildListContainer(Page.first(getEventIds(), ITEMS_PER_PAGE), 1, RenderCache.AUTHOR),
+                DATA_STORE_NAME);
+    }
 
+    private static Container buildListContainer(Page<Long> page, int pageNumber, String authorId) {
         List<ContainerChildComponent> components = new ArrayList<>();
 
         components.add(TextDisplay.of("## List of All Events"));
@@ -159,24 +296,27 @@ public class EventManager {
 
         //Add Text Display for current filter here
 
-        for (int i = 0; i < itemsPerPage && (startIndex + i) < events.size(); i++) {
-            EventData event = events.get(startIndex + i);
+        for (EventData event : resolve(page.items())) {
             components.add(TextDisplay.of("### " + event.getName()));
-            components.add(ActionRow.of(Button.of(ButtonStyle.SECONDARY, "event:list-zoom:" + authorId + ":" + event.getId(), "Details")));
+            components.add(ActionRow.of(Button.of(ButtonStyle.SECONDARY, ComponentId.of("event", "list-zoom", authorId, event.getId()), "Details")));
             components.add(Separator.createDivider(Separator.Spacing.SMALL));
         }
 
-        components.add(TextDisplay.of("-# Page " + (page + 1) + " of " + totalPages));
-        components.add(buildListActionRow(events, authorId, page));
+        components.add(TextDisplay.of("-# Page " + pageNumber));
+        if (!page.isEmpty())
+            components.add(buildListActionRow(page, pageNumber, authorId));
 
         return Container.of(components);
     }
 
-    private static ActionRow buildListActionRow(List<EventData> events, String authorId, int page) {
-        int totalPages = (int) Math.ceil((double) events.size() / 5.0);
-
-        Button prev = Button.secondary("event:list-prev:" + authorId + ":" + page, "◀️ Previous").withDisabled(page == 0);
-        Button next = Button.secondary("event:list-next:" + authorId + ":" + page, "Next ▶️").withDisabled(page >= totalPages - 1);
+    /**
+     * The buttons carry the first and last event of the page, so turning the page is a range query from there.
+     */
+    private static ActionRow buildListActionRow(Page<Long> page, int pageNumber, String authorId) {
+        Button prev = Button.secondary(ComponentId.of("event", "list-prev", authorId, pageNumber - 1, page.first()), "◀️ Previous")
+                .withDisabled(!page.hasPrevious());
+        Button next = Button.secondary(ComponentId.of("event", "list-next", authorId, pageNumber + 1, page.last()), "Next ▶️")
+                .withDisabled(!page.hasNext());
 
         return ActionRow.of(prev, next);
     }
@@ -189,11 +329,15 @@ public class EventManager {
     }
 
     public static Container buildDetailContainer(int index, String authorId) {
-        EventData event = getEventById(index);
+        return RenderCache.get("event-detail:" + index, authorId,
+                () -> buildDetailContainer(getEventById(index), index, RenderCache.AUTHOR), DATA_STORE_NAME);
+    }
+
+    private static Container buildDetailContainer(EventData event, int index, String authorId) {
 
         if (event == null) {
             log.error("Could not find Event # {} to show Details.", index);
-            return buildListContainer(EventManager.getAllEvents(), 0, authorId);
+            return buildListContainer(authorId);
         }
 
         List<ContainerChildComponent> components = new ArrayList<>();
@@ -215,11 +359,16 @@ public class EventManager {
         if (event.getRoleId() > 0)
             components.add(TextDisplay.of("### Role\n<@&" + event.getRoleId() + ">"));
 
+        if (event.getCurrency() != null || event.getLocale() != null) {
+            CurrencyUtils.MoneyFormat format = getMoneyFormat(event.getId());
+            components.add(TextDisplay.of("### Currency\n" + format.getCurrency().getCurrencyCode() + ", written like " + format.format(123456)));
+        }
+
         components.add(Separator.createDivider(Separator.Spacing.SMALL));
         components.add(TextDisplay.of("-# Event ID: " + event.getId()));
         components.add(ActionRow.of(
-                Button.primary("event:edit:" + authorId + ":" + index, "Edit"),
-                Button.danger("event:detail-back:" + authorId, "List")
+                Button.primary(ComponentId.of("event", "edit", authorId, index), "Edit"),
+                Button.danger(ComponentId.of("event", "detail-back", authorId), "List")
         ));
 
         return Container.of(components);
@@ -234,29 +383,29 @@ public class EventManager {
         components.add(Separator.createDivider(Separator.Spacing.SMALL));
         components.add(TextDisplay.of("Click on the different buttons/drop downs to edit values for this event."));
         components.add(ActionRow.of(
-                Button.secondary("event:edit-name:" + authorId + ":" + event.getId(), "Name"),
-                Button.secondary("event:edit-dates:" + authorId + ":" + event.getId(), "Dates"),
-                Button.secondary("event:edit-address:" + authorId + ":" + event.getId(), "Address"),
-                Button.secondary("event:edit-omnidex:" + authorId + ":" + event.getId(), "Omnidex")
+                Button.secondary(ComponentId.of("event", "edit-name", authorId, event.getId()), "Name"),
+                Button.secondary(ComponentId.of("event", "edit-dates", authorId, event.getId()), "Dates"),
+                Button.secondary(ComponentId.of("event", "edit-address", authorId, event.getId()), "Address"),
+                Button.secondary(ComponentId.of("event", "edit-omnidex", authorId, event.getId()), "Omnidex")
         ));
 
         components.add(TextDisplay.of("Related Channel"));
-        EntitySelectMenu.Builder channelMenu = EntitySelectMenu.create("event:edit-channel:" + authorId + ":" + event.getId(), EntitySelectMenu.SelectTarget.CHANNEL);
+        EntitySelectMenu.Builder channelMenu = EntitySelectMenu.create(ComponentId.of("event", "edit-channel", authorId, event.getId()), EntitySelectMenu.SelectTarget.CHANNEL);
         if (event.getChannelId() > 0)
             channelMenu.setDefaultValues(EntitySelectMenu.DefaultValue.channel(event.getChannelId()));
         components.add(ActionRow.of(channelMenu.build()));
 
         components.add(TextDisplay.of("Related Role"));
-        EntitySelectMenu.Builder roleMenu = EntitySelectMenu.create("event:edit-role:" + authorId + ":" + event.getId(), EntitySelectMenu.SelectTarget.ROLE);
+        EntitySelectMenu.Builder roleMenu = EntitySelectMenu.create(ComponentId.of("event", "edit-role", authorId, event.getId()), EntitySelectMenu.SelectTarget.ROLE);
         if (event.getRoleId() > 0)
             roleMenu.setDefaultValues(EntitySelectMenu.DefaultValue.role(event.getRoleId()));
         components.add(ActionRow.of(roleMenu.build()));
 
         components.add(Separator.createDivider(Separator.Spacing.SMALL));
         components.add(ActionRow.of(
-                Button.primary("event:edit-view:" + authorId + ":" + event.getId(), "View Event"),
-                Button.secondary("event:edit-view-list:" + authorId + ":" + event.getId(), "View List"),
-                Button.danger("event:edit-delete:" + authorId + ":" + event.getId(), "Delete Event")
+                Button.primary(ComponentId.of("event", "edit-view", authorId, event.getId()), "View Event"),
+                Button.secondary(ComponentId.of("event", "edit-view-list", authorId, event.getId()), "View List"),
+                Button.danger(ComponentId.of("event", "edit-delete", authorId, event.getId()), "Delete Event")
         ));
 
         return Container.of(components);
@@ -265,7 +414,7 @@ public class EventManager {
     public static Modal generateEditNameModal(int eventIndex) {
         EventData event = getEventById(eventIndex);
 
-        return Modal.create("event:edit-name:" + eventIndex, "Edit Name of Event # " + event.getId())
+        return Modal.create(ComponentId.of("event", "edit-name", eventIndex), "Edit Name of Event # " + event.getId())
                 .addComponents(ActionRow.of(TextInput.create("name", "Name", TextInputStyle.SHORT)
                         .setPlaceholder(event.getName())
                         .build()))
@@ -285,7 +434,7 @@ public class EventManager {
                 .setRequired(false)
                 .build();
 
-        return Modal.create("event:edit-dates:" + eventIndex, "Edit Dates for Event # " + event.getId())
+        return Modal.create(ComponentId.of("event", "edit-dates", eventIndex), "Edit Dates for Event # " + event.getId())
                 .addComponents(ActionRow.of(startDate), ActionRow.of(endDate))
                 .build();
     }
@@ -300,7 +449,7 @@ public class EventManager {
     public static Modal generateEditAddressModal(int eventIndex) {
         EventData event = getEventById(eventIndex);
 
-        return Modal.create("event:edit-address:" + eventIndex, "Edit Address of Event # " + event.getId())
+        return Modal.create(ComponentId.of("event", "edit-address", eventIndex), "Edit Address of Event # " + event.getId())
                 .addComponents(ActionRow.of(TextInput.create("address", "Address", TextInputStyle.SHORT)
                         .setPlaceholder(event.getAddress() == null ? "123 Main Street" : event.getAddress())
                         .build()))
@@ -310,7 +459,7 @@ public class EventManager {
     public static Modal generateEditOmnidexModal(int eventIndex) {
         EventData event = getEventById(eventIndex);
 
-        return Modal.create("event:edit-omnidex:" + eventIndex, "Edit Omnidex Link on Event # " + event.getId())
+        return Modal.create(ComponentId.of("event", "edit-omnidex", eventIndex), "Edit Omnidex Link on Event # " + event.getId())
                 .addComponents(ActionRow.of(TextInput.create("omnidex", "Omnidex", TextInputStyle.SHORT)
                         .setPlaceholder(event.getOmnidexLink() == null ? "https://omni.gatcg.com/events/..." : event.getOmnidexLink())
                         .build()))
@@ -325,7 +474,7 @@ public class EventManager {
             return null;
         }
 
-        return Modal.create("event:edit-delete:" + eventIndex, "Delete Event # " + event.getId())
+        return Modal.create(ComponentId.of("event", "edit-delete", eventIndex), "Delete Event # " + event.getId())
                 .addComponents(ActionRow.of(TextInput.create("name", "Enter Event Name to Confirm Deletion.", TextInputStyle.SHORT)
                         .setPlaceholder(event.getName())
                         .build()))
@@ -1,5 +1,7 @@
 package dev.supersand24.events;
 
+import dev.supersand24.ComponentId;
+import dev.supersand24.ComponentRouter;
 import dev.supersand24.ICommand;
 import net.dv8tion.jda.api.components.actionrow.ActionRow;
 import net.dv8tion.jda.api.components.actionrow.ActionRowChildComponent;
@@ -10,11 +12,8 @@ import net.dv8tion.jda.api.components.textdisplay.TextDisplay;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
-import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 
@@ -23,6 +22,8 @@ import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 
+import static dev.supersand24.InteractionDispatcher.*;
+
 public class RolesCommand implements ICommand {
 
     @Override
@@ -44,10 +45,10 @@ public class RolesCommand implements ICommand {
 
         List<ActionRowChildComponent> buttons = new ArrayList<>();
         for (EventData event : events) {
-            buttons.add(Button.secondary("role-select:" + event.getId(), event.getName()));
+            buttons.add(Button.secondary(ComponentId.of("roles", "select", event.getId()), event.getName()));
         }
 
-        e.reply("Sending Role Selection now!").setEphemeral(true).queue();
+        reply(e, "Sending Role Selection now!", true);
 
         Container container = Container.of(
                 TextDisplay.of("## Role Selection"),
@@ -62,44 +63,30 @@ public class RolesCommand implements ICommand {
     }
 
     @Override
-    public void handleButtonInteraction(ButtonInteractionEvent e) {
-        String[] parts = e.getComponentId().split(":");
-        String prefix = parts[0];
-
-        if (prefix.startsWith("role-select")) {
-            String roleId = parts[1];
-            Role role = EventManager.getRole(Long.parseLong(roleId));
-
-            if (role == null) {
-                e.reply("Sorry there was an issue, I can't find the role you need!").setEphemeral(true).queue();
-                return;
-            }
-
-            Member member = e.getMember();
-            Guild guild = e.getGuild();
-            if (member == null || guild == null) return;
+    public void registerComponents(ComponentRouter router) {
+        router.button("roles", "select", this::toggleRole).args(1);
+        // Role selection messages stay up in their channel, so buttons sent before the rename still need to work.
+        router.legacy("role-select", "roles", "select");
+    }
 
-            e.deferReply(true).queue();
+    private void toggleRole(ButtonInteractionEvent e, ComponentId id) {
+        Role role = EventManager.getRole(id.getLong(0));
 
-            if (member.getRoles().contains(role))
-                guild.removeRoleFromMember(member, role).queue(unused -> e.getHook().sendMessage(role.getAsMention() + " was removed.").setSuppressedNotifications(true).setEphemeral(true).queue());
-            else
-                guild.addRoleToMember(member, role).queue(unused -> e.getHook().sendMessage(role.getAsMention() + " was added.").setSuppressedNotifications(true).setEphemeral(true).queue());
+        if (role == null) {
+            reply(e, "Sorry there was an issue, I can't find the role you need!", true);
+            return;
         }
-    }
 
-    @Override
-    public void handleStringSelectInteraction(StringSelectInteractionEvent e) {
+        Member member = e.getMember();
+        Guild guild = e.getGuild();
+        if (member == null || guild == null) return;
 
-    }
-
-    @Override
-    public void handleEntitySelectInteraction(EntitySelectInteractionEvent e) {
+        deferReply(e, true);
 
+        if (member.getRoles().contains(role))
+            guild.removeRoleFromMember(member, role).queue(unused -> e.getHook().sendMessage(role.getAsMention() + " was removed.").setSuppressedNotifications(true).setEphemeral(true).queue());
+        else
+            guild.addRoleToMember(member, role).queue(unused -> e.getHook().sendMessage(role.getAsMention() + " was added.").setSuppressedNotifications(true).setEphemeral(true).queue());
     }
 
-    @Override
-    public void handleModalInteraction(ModalInteractionEvent e) {
-
-    }
 }
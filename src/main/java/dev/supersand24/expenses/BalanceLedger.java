@@ -0,0 +1,122 @@
+package dev.supersand24.expenses;
+
+import dev.supersand24.CurrencyUtils;
+import dev.supersand24.SnowflakeSet;
+
+import java.util.*;
+
+/**
+ * Running net balances of every event, made up of its unsettled expenses.
+ * The ExpenseManager adjusts it each time an expense changes, so reading balances never walks the expenses.
+ * A positive balance means the user is owed money, a negative one means they owe money.
+ * <p>
+ * Balances are kept in cents. An expense that doesn't split evenly gives its leftover cents to the
+ * beneficiaries with the lowest user IDs, so every event's balances always add up to exactly zero.
+ */
+class BalanceLedger {
+
+    /**
+     * What an expense added to the balances when it was last applied, so exactly that can be taken back out.
+     */
+    private record Contribution(long eventId, long payerId, long amountCents, long[] beneficiaryIds, long[] shares) {}
+
+    /**
+     * A user's balance, changed in place so updating it doesn't box a new value every time.
+     */
+    private static final class Balance {
+        long cents;
+    }
+
+    /**
+     * Every user's balance as parallel arrays, ordered by user ID.
+     */
+    record Balances(long[] userIds, long[] cents) {}
+
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private final Map<Long, Map<Long, Balance>> balancesByEvent = new HashMap<>();
+
+    BalanceLedger(Collection<ExpenseData> expenses) {
+        for (ExpenseData expense : expenses)
+            update(expense);
+    }
+
+    /**
+     * Replaces what an expense contributes to the balances with its current state.
+     * Settled expenses and expenses without beneficiaries contribute nothing.
+     */
+    synchronized void update(ExpenseData expense) {
+        Contribution previous = contributions.remove(expense.getId());
+        if (previous != null) apply(previous, -1);
+
+        SnowflakeSet beneficiaries = expense.getBeneficiaryIds();
+        if (expense.isSettled() || beneficiaries.isEmpty()) return;
+
+        // The set is already ordered by user ID.
+        long[] beneficiaryIds = beneficiaries.toArray();
+        long amountCents = expense.getAmountCents();
+        Contribution current = new Contribution(expense.getEventId(), expense.getPayerId(), amountCents,
+                beneficiaryIds, CurrencyUtils.splitCents(amountCents, beneficiaryIds.length));
+        contributions.put(expense.getId(), current);
+        apply(current, 1);
+    }
+
+    synchronized void remove(long expenseId) {
+        Contribution previous = contributions.remove(expenseId);
+        if (previous != null) apply(previous, -1);
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        Map<Long, Balance> balances = balancesByEvent.computeIfAbsent(contribution.eventId, id -> new HashMap<>());
+
+        balances.computeIfAbsent(contribution.payerId, id -> new Balance()).cents += sign * contribution.amountCents;
+        for (int i = 0; i < contribution.beneficiaryIds.length; i++)
+            balances.computeIfAbsent(contribution.beneficiaryIds[i], id -> new Balance()).cents -= sign * contribution.shares[i];
+
+        // Users who are even again drop out.
+        balances.values().removeIf(balance -> balance.cents == 0);
+        if (balances.isEmpty()) balancesByEvent.remove(contribution.eventId);
+    }
+
+    /**
+     * @return The net balance of every user with unsettled expenses in the event.
+     */
+    synchronized Balances getBalances(long eventId) {
+        return toBalances(balancesByEvent.getOrDefault(eventId, Collections.emptyMap()));
+    }
+
+    /**
+     * @return The net balance of every user with unsettled expenses, across all events.
+     */
+    synchronized Balances getTotalBalances() {
+        Map<Long, Balance> totals = new HashMap<>();
+        for (Map<Long, Balance> balances : balancesByEvent.values())
+            balances.forEach((userId, balance) -> totals.computeIfAbsent(userId, id -> new Balance()).cents += balance.cents);
+        totals.values().removeIf(balance -> balance.cents == 0);
+        return toBalances(totals);
+    }
+
+    private static Balances toBalances(Map<Long, Balance> balances) {
+        long[] userIds = new long[balances.size()];
+        int i = 0;
+        for (long userId : balances.keySet())
+            userIds[i++] = userId;
+        Arrays.sort(userIds);
+        long[] cents = new long[userIds.length];
+        for (i = 0; i < userIds.length; i++)
+            cents[i] = balances.get(userIds[i]).cents;
+        return new Balances(userIds, cents);
+    }
+
+    /**
+     * @return The user's net balance, in cents, in every event they have unsettled expenses in.
+     */
+    synchronized Map<Long, Long> getBalancesForUser(long userId) {
+        Map<Long, Long> result = new TreeMap<>();
+        balancesByEvent.forEach((eventId, balances) -> {
+            Balance balance = balances.get(userId);
+            if (balance != null) result.put(eventId, balance.cents);
+        });
+        return result;
+    }
+
+}
@@ -1,18 +1,18 @@
 package dev.supersand24.expenses;
 
+import dev.supersand24.ComponentId;
+import dev.supersand24.ComponentRouter;
 import dev.supersand24.ICommand;
-import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
-import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
 import net.dv8tion.jda.api.utils.messages.MessageCreateData;
 
+import static dev.supersand24.InteractionDispatcher.*;
+
 public class DebtCommand implements ICommand {
     @Override
     public String getName() { return "debt"; }
@@ -31,74 +31,40 @@ public class DebtCommand implements ICommand {
     public void handleSlashCommand(SlashCommandInteractionEvent e) {
         switch (e.getSubcommandName()) {
             case "list" ->
-                    e.reply(ExpenseManager.generateDebtListMessage(e.getUser().getId(), 0))
-                            .useComponentsV2()
-                            .queue();
+                    reply(e, ExpenseManager.generateDebtListMessage(e.getUser().getId()), false);
             case "markpaid" -> {
                 long debtId = e.getOption("id").getAsLong();
-                String actioningUserId = e.getUser().getId();
+                long actioningUserId = e.getUser().getIdLong();
                 String resultMessage = ExpenseManager.markDebtAsPaid(debtId, actioningUserId);
-                e.reply(resultMessage).setEphemeral(true).queue();
+                reply(e, resultMessage, true);
             }
         }
     }
 
     @Override
-    public void handleButtonInteraction(ButtonInteractionEvent e) {
-        String[] parts = e.getComponentId().split(":");
-        String prefix = parts[0];
-
-        if (prefix.startsWith("debt-")) {
-            String authorId = parts[1];
-
-            if (!e.getUser().getId().equals(authorId)) {
-                e.reply("You cannot use these buttons.").setEphemeral(true).queue();
-                return;
-            }
-
-            e.deferEdit().queue();
-
-            MessageCreateData data = new MessageCreateBuilder().setContent("No debts.").build();
-
-            switch (prefix) {
-                case "debt-list-prev", "debt-list-next" -> {
-                    int currentPage = Integer.parseInt(parts[2]);
-                    int newPage = prefix.equals("debt-list-next") ? currentPage + 1 : currentPage - 1;
-                    data = ExpenseManager.generateDebtListMessage(authorId, newPage);
-                }
-                case "debt-list-zoom" -> {
-                    int index = Integer.parseInt(parts[2]);
-                    data = ExpenseManager.generateDebtDetailMessage(authorId, index, e.getJDA());
-                }
-                case "debt-detail-prev", "debt-detail-next" -> {
-                    int currentIndex = Integer.parseInt(parts[2]);
-                    int newIndex = prefix.equals("debt-detail-next") ? currentIndex + 1 : currentIndex - 1;
-                    data = ExpenseManager.generateDebtDetailMessage(authorId, newIndex, e.getJDA());
-                }
-                case "debt-detail-back" -> {
-                    int page = Integer.parseInt(parts[2]);
-                    data = ExpenseManager.generateDebtListMessage(authorId, page);
-                }
-            }
-
-            e.getHook().editOriginalEmbeds(data.getEmbeds())
-                    .setComponents(data.getComponents())
-                    .queue();
-        }
+    public void registerComponents(ComponentRouter router) {
+        router.button("debt", "list-prev", (e, id) -> turnListPage(e, id, false)).forAuthor().args(3);
+        router.button("debt", "list-next", (e, id) -> turnListPage(e, id, true)).forAuthor().args(3);
+        router.button("debt", "list-zoom", (e, id) -> showDetail(e, id.getString(0), id.getInt(1))).forAuthor().args(2);
+        router.button("debt", "detail-prev", (e, id) -> showDetail(e, id.getString(0), id.getInt(1) - 1)).forAuthor().args(2);
+        router.button("debt", "detail-next", (e, id) -> showDetail(e, id.getString(0), id.getInt(1) + 1)).forAuthor().args(2);
+        router.button("debt", "detail-back", (e, id) ->
+                editComponents(e, ExpenseManager.generateDebtListMessage(id.getString(0)).getComponents())).forAuthor();
     }
 
-    @Override
-    public void handleStringSelectInteraction(StringSelectInteractionEvent e) {
-
+    private void turnListPage(ButtonInteractionEvent e, ComponentId id, boolean forward) {
+        MessageCreateData message = ExpenseManager.generateDebtListMessage(id.getString(0), id.getInt(1), id.getLong(2), forward);
+        editComponents(e, message.getComponents());
     }
 
-    @Override
-    public void handleEntitySelectInteraction(EntitySelectInteractionEvent e) {
+    private void showDetail(ButtonInteractionEvent e, String authorId, int index) {
+        deferEdit(e);
 
+        // Details wait on user names, which finish on a JDA callback thread instead of the handler's.
+        ExpenseManager.generateDebtDetailMessage(authorId, index, e.getJDA())
+                .thenAccept(message -> e.getHook().editOriginalComponents(message.getComponents())
+                        .useComponentsV2()
+                        .queue());
     }
 
-    @Override
-    public void handleModalInteraction(ModalInteractionEvent e) {
-
-    }
 }
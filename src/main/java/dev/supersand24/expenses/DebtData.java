@@ -2,39 +2,43 @@ package dev.supersand24.expenses;
 
 import dev.supersand24.CurrencyUtils;
 import dev.supersand24.IData;
+import dev.supersand24.UserResolver;
+import dev.supersand24.events.EventManager;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.JDA;
-import net.dv8tion.jda.api.entities.User;
 
 import java.awt.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class DebtData implements IData {
 
     private transient long debtId;
     private final long eventId;
-    private final String debtorId;
-    private final String creditorId;
-    private final double amount;
+    private final long debtorId;
+    private final long creditorId;
+    private long amountCents;
+    /** Amounts used to be stored in dollars. Only set while loading data saved before that changed. */
+    private Double amount;
     private boolean isPaid;
 
-    public DebtData(long debtId, long eventId, String debtorId, String creditorId, double amount) {
+    public DebtData(long debtId, long eventId, long debtorId, long creditorId, long amountCents) {
         this.debtId = debtId;
         this.eventId = eventId;
         this.debtorId = debtorId;
         this.creditorId = creditorId;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.isPaid = false;
     }
 
     public long getDebtId() { return debtId; }
     public long getEventId() { return eventId; }
-    public String getDebtorId() { return debtorId; }
-    public String getCreditorId() { return creditorId; }
-    public double getAmount() { return amount; }
+    public long getDebtorId() { return debtorId; }
+    public long getCreditorId() { return creditorId; }
+    public long getAmountCents() { return amountCents; }
     public boolean isPaid() { return isPaid; }
 
-    public void markAsPaid() {
+    public synchronized void markAsPaid() {
         this.isPaid = true;
     }
 
@@ -43,17 +47,31 @@ public class DebtData implements IData {
         debtId = id;
     }
 
-    public EmbedBuilder createEmbed(JDA jda) {
-        User debtor = jda.retrieveUserById(debtorId).complete();
-        User creditor = jda.retrieveUserById(creditorId).complete();
+    @Override
+    public synchronized void afterLoad() {
+        if (amount != null) {
+            amountCents = CurrencyUtils.toCents(amount);
+            amount = null;
+        }
+    }
+
+    /**
+     * Builds the details of the debt once the names of the people involved are known, without blocking on Discord.
+     */
+    public CompletableFuture<EmbedBuilder> createEmbed(JDA jda) {
+        return UserResolver.getName(jda, debtorId)
+                .thenCombine(UserResolver.getName(jda, creditorId), this::createEmbed);
+    }
+
+    private EmbedBuilder createEmbed(String debtor, String creditor) {
         //Event event = EventManager.getEventById(eventId);
 
 
         EmbedBuilder embed = new EmbedBuilder();
         embed.setColor(Color.RED);
-        embed.setTitle("Debt Details: " + debtor.getName() + " → " + creditor.getName());
+        embed.setTitle("Debt Details: " + debtor + " → " + creditor);
 
-        embed.addField("Amount Owed", CurrencyUtils.formatAsUSD(amount), false);
+        embed.addField("Amount Owed", EventManager.getMoneyFormat(eventId).format(amountCents), false);
         //embed.addField("For Event", event != null ? event.getName() : "Unknown Event", false);
 
         List<PaymentInfo> paymentInfos = ExpenseManager.getPaymentInfoForUser(creditorId);
@@ -62,9 +80,9 @@ public class DebtData implements IData {
             for (PaymentInfo info : paymentInfos) {
                 paymentDescription.append(String.format("**%s:** `%s`\n", info.getAppName(), info.getDetail()));
             }
-            embed.addField("How to Pay " + creditor.getName(), paymentDescription.toString(), false);
+            embed.addField("How to Pay " + creditor, paymentDescription.toString(), false);
         } else {
-            embed.addField("How to Pay " + creditor.getName(), "This user has not added any payment information.", false);
+            embed.addField("How to Pay " + creditor, "This user has not added any payment information.", false);
         }
 
         return embed;
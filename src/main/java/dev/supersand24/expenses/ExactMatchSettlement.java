@@ -0,0 +1,36 @@
+package dev.supersand24.expenses;
+
+import java.util.*;
+
+/**
+ * Pairs up everyone who owes exactly what someone else is owed, since each of those pairs
+ * is settled by a single payment, and leaves the rest to the greedy strategy.
+ */
+class ExactMatchSettlement implements SettlementStrategy {
+
+    @Override
+    public List<Transfer> settle(long[] balances) {
+        long[] remaining = balances.clone();
+        List<Transfer> transfers = new ArrayList<>();
+
+        // Creditors waiting for a debtor of the same amount, lowest index first.
+        Map<Long, Deque<Integer>> creditorsByAmount = new HashMap<>();
+        for (int i = 0; i < remaining.length; i++)
+            if (remaining[i] > 0) creditorsByAmount.computeIfAbsent(remaining[i], amount -> new ArrayDeque<>()).add(i);
+
+        for (int debtor = 0; debtor < remaining.length; debtor++) {
+            if (remaining[debtor] >= 0) continue;
+            Deque<Integer> matches = creditorsByAmount.get(-remaining[debtor]);
+            if (matches == null || matches.isEmpty()) continue;
+
+            int creditor = matches.poll();
+            transfers.add(new Transfer(debtor, creditor, remaining[creditor]));
+            remaining[debtor] = 0;
+            remaining[creditor] = 0;
+        }
+
+        transfers.addAll(GREEDY.settle(remaining));
+        return transfers;
+    }
+
+}
@@ -1,9 +1,13 @@
 package dev.supersand24.expenses;
 
+import dev.supersand24.AutocompleteIndex;
+import dev.supersand24.ComponentId;
+import dev.supersand24.ComponentRouter;
 import dev.supersand24.CurrencyUtils;
 import dev.supersand24.ICommand;
 import dev.supersand24.events.EventData;
 import dev.supersand24.events.EventManager;
+import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.components.actionrow.ActionRow;
 import net.dv8tion.jda.api.components.container.Container;
 import net.dv8tion.jda.api.components.selections.EntitySelectMenu;
@@ -11,10 +15,11 @@ import net.dv8tion.jda.api.components.separator.Separator;
 import net.dv8tion.jda.api.components.textdisplay.TextDisplay;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.Command;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
@@ -22,13 +27,15 @@ import net.dv8tion.jda.api.interactions.commands.build.OptionData;
 import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
 import net.dv8tion.jda.api.interactions.modals.Modal;
 import net.dv8tion.jda.api.interactions.modals.ModalMapping;
-import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
 import net.dv8tion.jda.api.utils.messages.MessageCreateData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.*;
 import java.util.List;
 
+import static dev.supersand24.InteractionDispatcher.*;
+
 public class ExpenseCommand implements ICommand {
 
     private final Logger log = LoggerFactory.getLogger(ExpenseCommand.class);
@@ -48,10 +55,18 @@ public class ExpenseCommand implements ICommand {
                         new SubcommandData("list", "List expenses.")
                                 .addOption(OptionType.USER, "user", "Filter expenses involving a specific user."),
                         new SubcommandData("view", "View the details of a single expense.")
-                                .addOption(OptionType.INTEGER, "id", "The ID of the expense to view.", true),
+                                .addOption(OptionType.INTEGER, "id", "The ID of the expense to view.", true, true),
                         new SubcommandData("remove", "Remove an expense you added.")
-                                .addOption(OptionType.INTEGER, "id", "The ID of the expense to remove.", true),
+                                .addOption(OptionType.INTEGER, "id", "The ID of the expense to remove.", true, true),
                         new SubcommandData("settleup", "Calculate who owes who to settle all debts.")
+                                .addOption(OptionType.INTEGER, "event", "The ID of the event to settle. Settles every event if left out.", false, true),
+                        new SubcommandData("balance", "See how much someone owes or is owed right now.")
+                                .addOption(OptionType.USER, "user", "Whose balance to show. Defaults to you."),
+                        new SubcommandData("import", "Import many expenses at once from a CSV or JSON file.")
+                                .addOptions(
+                                        new OptionData(OptionType.ATTACHMENT, "file", "A file with name, amount, payer, beneficiaries and event columns.", true),
+                                        new OptionData(OptionType.INTEGER, "event", "The event for rows that don't name one.", false, true)
+                                )
                 );
     }
 
@@ -60,56 +75,70 @@ public class ExpenseCommand implements ICommand {
         switch (e.getSubcommandName()) {
             case "add" -> {
                 String optionName = e.getOption("name").getAsString();
-                double optionAmount = e.getOption("amount").getAsDouble();
 
                 //Temp
-                long expenseId = ExpenseManager.createExpense(optionName, optionAmount, e.getUser().getId(), EventManager.getAllEvents().getFirst());
+                EventData event = EventManager.getAllEvents().getFirst();
+                CurrencyUtils.MoneyFormat format = EventManager.getMoneyFormat(event.getId());
+                long optionAmount = format.toMinorUnits(e.getOption("amount").getAsDouble());
+                long expenseId = ExpenseManager.createExpense(optionName, optionAmount, e.getUser().getIdLong(), event);
 
-                e.replyComponents(Container.of(
-                        TextDisplay.of("Created " + CurrencyUtils.formatAsUSD(optionAmount) + " expense."),
+                replyComponents(e, false, Container.of(
+                        TextDisplay.of("Created " + format.format(optionAmount) + " expense."),
                         Separator.createDivider(Separator.Spacing.SMALL),
                         TextDisplay.of("Choose who benefited from " + optionName + "."),
-                        ActionRow.of(EntitySelectMenu.create("expense-beneficiary-select:" + expenseId, EntitySelectMenu.SelectTarget.USER)
+                        ActionRow.of(EntitySelectMenu.create(ComponentId.of("expense", "beneficiary-select", expenseId), EntitySelectMenu.SelectTarget.USER)
                                 .setDefaultValues(EntitySelectMenu.DefaultValue.user(e.getUser().getId()))
                                 .setMaxValues(20)
                                 .build())
-                )).useComponentsV2().queue();
+                ));
             }
             case "remove" -> {
-                e.reply("coming soon.").setEphemeral(true).queue();
+                reply(e, "coming soon.", true);
             }
             case "view" -> {
                 long expenseId = e.getOption("id") != null ? e.getOption("id").getAsLong() : -1;
-                e.deferReply().queue();
+                deferReply(e, false);
 
-                List<ExpenseData> sortedExpenses = ExpenseManager.getExpensesSorted();
-                int initialIndex = -1;
-
-                for (int i = 0; i < sortedExpenses.size(); i++) {
-                    if (sortedExpenses.get(i).getId() == expenseId) {
-                        initialIndex = i;
-                        break;
-                    }
-                }
-
-                if (initialIndex == -1) {
+                if (!ExpenseManager.exists(expenseId)) {
                     e.getHook().sendMessage("This expense doesn't exist in my library!").setEphemeral(true).queue();
                     return;
                 }
+                ExpenseManager.recordUse(expenseId);
 
-                MessageCreateData messageData = ExpenseManager.generateExpenseDetailMessage(e.getUser().getId(), initialIndex);
+                MessageCreateData messageData = ExpenseManager.generateExpenseDetailMessage(e.getUser().getId(), (int) expenseId);
                 e.getHook().sendMessage(messageData).queue();
             }
             case "list" -> {
-                e.deferReply().queue();
+                deferReply(e, false);
                 User userFilter = e.getOption("user") != null ? e.getOption("user").getAsUser() : null;
                 String targetId = (userFilter == null) ? "all" : userFilter.getId();
 
-                MessageCreateData messageData = ExpenseManager.buildExpenseListPage(0, e.getUser().getId(), targetId);
+                MessageCreateData messageData = ExpenseManager.buildExpenseListPage(e.getUser().getId(), targetId);
                 e.getHook().sendMessage(messageData).queue();
             }
+            case "balance" -> {
+                User target = e.getOption("user") != null ? e.getOption("user").getAsUser() : e.getUser();
+                reply(e, ExpenseManager.buildBalanceView(target), false);
+            }
+            case "import" -> {
+                if (e.getGuild() == null) {
+                    reply(e, "Expenses can only be imported in a server.", true);
+                    return;
+                }
+                long eventId = e.getOption("event") != null ? e.getOption("event").getAsLong() : 0;
+                if (eventId != 0 && !EventManager.eventExists(eventId)) {
+                    reply(e, "There is no event #" + eventId + ".", true);
+                    return;
+                }
+                if (eventId != 0) EventManager.recordUse(eventId);
+                deferReply(e, false);
+                ExpenseImporter.start(e.getOption("file").getAsAttachment(), e.getGuild(), eventId, e.getHook());
+            }
             case "settleup" -> {
-                e.getHook().sendMessageComponents(ExpenseManager.buildPaymentInfoDetailContainer())
+                deferReply(e, false);
+                Long eventId = e.getOption("event") != null ? e.getOption("event").getAsLong() : null;
+                if (eventId != null) EventManager.recordUse(eventId);
+                e.getHook().sendMessageComponents(ExpenseManager.buildPaymentInfoDetailContainer(eventId))
                         .useComponentsV2()
                         .queue();
             }
@@ -117,216 +146,178 @@ public class ExpenseCommand implements ICommand {
     }
 
     @Override
-    public void handleButtonInteraction(ButtonInteractionEvent e) {
-        String[] parts = e.getComponentId().split(":");
-        String prefix = parts[0];
+    public void handleAutoComplete(CommandAutoCompleteInteractionEvent e) {
+        String query = e.getFocusedOption().getValue();
+        List<AutocompleteIndex.Suggestion<Long>> suggestions = switch (e.getFocusedOption().getName()) {
+            case "id" -> ExpenseManager.suggestExpenses(query);
+            case "event" -> EventManager.suggestEvents(query);
+            default -> List.of();
+        };
+        e.replyChoices(suggestions.stream()
+                .map(suggestion -> new Command.Choice(suggestion.label(), suggestion.key()))
+                .toList()).queue();
+    }
 
-        if (prefix.startsWith("expense-")) {
-            String authorId = parts[1];
+    @Override
+    public void registerComponents(ComponentRouter router) {
+        router.button("expense", "edit", (e, id) ->
+                editComponents(e, ExpenseManager.generateExpenseEditMessage(id.getString(0), id.getInt(1)).getComponents())).forAuthor().args(2);
+        router.button("expense", "edit-name", (e, id) -> e.replyModal(ExpenseManager.generateEditExpenseNameModal(id.getInt(1))).queue()).opensModal().forAuthor().args(2);
+        router.button("expense", "edit-amount", (e, id) -> e.replyModal(ExpenseManager.generateEditExpenseAmountModal(id.getInt(1))).queue()).opensModal().forAuthor().args(2);
+        router.button("expense", "edit-event", (e, id) -> e.replyModal(ExpenseManager.generateEditExpenseEventLinkedModal(id.getInt(1))).queue()).opensModal().forAuthor().args(2);
+        router.button("expense", "edit-delete", (e, id) -> {
+            Modal modal = ExpenseManager.generateDeleteExpenseModel(id.getInt(1));
+            if (modal == null)
+                reply(e, "Could not delete non existing expense!", true);
+            else
+                e.replyModal(modal).queue();
+        }).opensModal().forAuthor().args(2);
+        router.button("expense", "edit-view", (e, id) ->
+                editComponents(e, ExpenseManager.buildExpenseDetailContainer(id.getInt(1), id.getString(0)))).forAuthor().args(2);
+        router.button("expense", "edit-view-list", (e, id) ->
+                editComponents(e, ExpenseManager.buildExpenseListContainer(id.getString(0)))).forAuthor();
+
+        router.button("expense", "list-prev", (e, id) -> turnListPage(e, id, false)).forAuthor().args(4);
+        router.button("expense", "list-next", (e, id) -> turnListPage(e, id, true)).forAuthor().args(4);
+        router.button("expense", "list-zoom", (e, id) ->
+                editMessage(e, ExpenseManager.generateExpenseDetailMessage(id.getString(0), id.getInt(1)))).forAuthor().args(2);
+        router.button("expense", "detail-back", (e, id) ->
+                editMessage(e, ExpenseManager.buildExpenseListPage(id.getString(0), "all"))).forAuthor();
+
+        router.button("expense", "settleup-explain", (e, id) -> explainSettlement(e));
+        router.legacy("settleup-explain", "expense", "settleup-explain");
+
+        router.entitySelect("expense", "beneficiary-select", this::selectBeneficiaries).args(1);
+        router.entitySelect("expense", "edit-payer", (e, id) -> {
+            ExpenseManager.setExpensePayer(id.getLong(1), e.getMentions().getUsers().getFirst().getIdLong());
+            reply(e, "Payer Updated", true);
+        }).forAuthor().args(2);
+        router.entitySelect("expense", "edit-beneficiary", (e, id) -> {
+            ExpenseManager.addBenefactors(id.getLong(1), e.getMentions().getUsers());
+            reply(e, "Benefactors Updated", true);
+        }).forAuthor().args(2);
+
+        router.modal("expense", "edit-name", this::editName).args(1);
+        router.modal("expense", "edit-amount", this::editAmount).args(1);
+        router.modal("expense", "edit-event", this::editEvent).args(1);
+        router.modal("expense", "edit-delete", this::delete).args(1);
+    }
 
-            if (!e.getUser().getId().equals(authorId)) {
-                e.reply("You cannot use these buttons.").setEphemeral(true).queue();
-                return;
-            }
+    private void turnListPage(ButtonInteractionEvent e, ComponentId id, boolean forward) {
+        editMessage(e, ExpenseManager.buildExpenseListPage(id.getString(0), id.getString(1), id.getInt(2), id.getString(3), forward));
+    }
 
-            if (prefix.equals("expense-edit")) {
+    private void editMessage(ButtonInteractionEvent e, MessageCreateData data) {
+        editComponents(e, data.getComponents());
+    }
 
-                int index = Integer.parseInt(parts[2]);
-                e.editComponents(ExpenseManager.generateExpenseEditMessage(authorId, index).getComponents())
-                        .useComponentsV2()
-                        .queue();
+    private void explainSettlement(ButtonInteractionEvent e) {
+        EmbedBuilder embed = new EmbedBuilder();
+        embed.setColor(Color.BLUE);
+        embed.setTitle("How the Settlement is Calculated");
 
-            } else if (prefix.startsWith("expense-edit-")) {
-
-                int index = Integer.parseInt(parts[2]);
-
-                switch (prefix) {
-                    case "expense-edit-name" -> e.replyModal(ExpenseManager.generateEditExpenseNameModal(index)).queue();
-                    case "expense-edit-amount" -> e.replyModal(ExpenseManager.generateEditExpenseAmountModal(index)).queue();
-                    case "expense-edit-event" -> e.replyModal(ExpenseManager.generateEditExpenseEventLinkedModal(index)).queue();
-                    case "expense-edit-delete" -> {
-                        Modal modal = ExpenseManager.generateDeleteExpenseModel(index);
-                        if (modal == null)
-                            e.reply("Could not delete non existing expense!").setEphemeral(true).queue();
-                        else
-                            e.replyModal(modal).queue();
-                    }
-                    case "expense-edit-view" -> e.editComponents(ExpenseManager.buildExpenseDetailContainer(index, authorId))
-                            .useComponentsV2()
-                            .queue();
-                    case "expense-edit-view-list" ->
-                            e.editComponents(ExpenseManager.buildExpenseListContainer(ExpenseManager.getExpensesSorted(), 0, authorId))
-                                    .useComponentsV2()
-                                    .queue();
-                    default -> {
-                        log.error("Unexpected Expense Edit Button Pressed!");
-                        e.reply("Something went wrong!").setEphemeral(true).queue();
-                    }
-                }
+        embed.addField("Totaling the Bills 💵",
+                "First, I look at every single expense and add up the total amount of money each person spent. This shows who contributed money to the trip.",
+                false);
 
-            }
-            else {
-
-                e.deferEdit().useComponentsV2().queue();
-
-                MessageCreateData data = new MessageCreateBuilder().setContent("No events.").build();
-
-                switch (prefix) {
-                    case "expense-list-prev", "expense-list-next" -> {
-                        int currentPage = Integer.parseInt(parts[2]);
-                        int newPage = prefix.equals("expense-list-next") ? currentPage + 1 : currentPage - 1;
-                        data = ExpenseManager.generateExpenseListMessage(authorId, newPage);
-                    }
-                    case "expense-list-zoom" -> {
-                        int index = Integer.parseInt(parts[2]);
-                        data = ExpenseManager.generateExpenseDetailMessage(authorId, index);
-                    }
-                    case "expense-detail-back" -> {
-                        data = ExpenseManager.generateExpenseListMessage(authorId, 0);
-                    }
-                }
+        embed.addField("Finding the 'Fair Share' ➗",
+                "Next, for each shared expense, I calculate a \"fair share.\" For example, if a $30 pizza was shared by 3 people, everyone's fair share of that pizza is $10.",
+                false);
 
-                e.getHook().editOriginalComponents(data.getComponents())
-                        .useComponentsV2()
-                        .queue();
-            }
+        embed.addField("Checking the Balance 👍",
+                "Then, I compare how much you *spent* versus your total *fair share*.\n" +
+                        "• If you spent **more** than your share, you are **owed money**.\n" +
+                        "• If you spent **less** than your share, you **need to pay** money.",
+                false);
 
-        }
+        embed.addField("Simplifying the Payments ➡️",
+                "So, instead of a messy web of payments, I figure out the simplest way to get everyone even. I tell people who they need to pay and exactly how much, minimizing the number of payments required until all debts are cleared.",
+                false);
+
+        replyEmbeds(e, embed.build(), true);
     }
 
-    @Override
-    public void handleStringSelectInteraction(StringSelectInteractionEvent e) {
-        String[] parts = e.getComponentId().split(":");
-        String prefix = parts[0];
-        String authorId = parts.length > 1 ? parts[1] : "";
-
-        if (prefix.equals("expense-list-zoom")) {
-            if (!e.getUser().getId().equals(authorId)) {
-                e.reply("You cannot use these buttons.").setEphemeral(true).queue();
-                return;
-            }
+    private void selectBeneficiaries(EntitySelectInteractionEvent e, ComponentId id) {
+        long expenseId = id.getLong(0);
 
-            int index = Integer.parseInt(e.getValues().get(0));
-            e.editComponents(ExpenseManager.buildExpenseDetailContainer(index, authorId))
-                    .useComponentsV2()
-                    .queue();
+        if (!ExpenseManager.exists(expenseId)) {
+            log.error("Could not find expense: " + expenseId);
+            reply(e, "This expense doesn't exist in my library!", true);
+            return;
         }
-    }
 
-    @Override
-    public void handleEntitySelectInteraction(EntitySelectInteractionEvent e) {
-        String[] parts = e.getComponentId().split(":");
-        String prefix = parts[0];
-
-        if (prefix.equals("expense-beneficiary-select")) {
-            long expenseId = Long.parseLong(parts[1]);
+        List<User> beneficiaries = e.getMentions().getUsers();
 
-            if (!ExpenseManager.exists(expenseId)) {
-                log.error("Could not find expense: " + expenseId);
-                e.reply("This expense doesn't exist in my library!").setEphemeral(true).queue();
-                return;
-            }
+        ExpenseManager.addBenefactors(expenseId, beneficiaries);
 
-            List<User> beneficiaries = e.getMentions().getUsers();
-
-            ExpenseManager.addBenefactors(expenseId, beneficiaries);
+        if (beneficiaries.size() == 1) {
+            reply(e, "Added 1 person to " + ExpenseManager.getExpenseName(expenseId) + " expense.", true);
+        } else {
+            reply(e, "Added " + beneficiaries.size() + " people to " + ExpenseManager.getExpenseName(expenseId) + " expense.", true);
+        }
+    }
 
-            if (beneficiaries.size() == 1) {
-                e.reply("Added 1 person to " + ExpenseManager.getExpenseName(expenseId) + " expense.").setEphemeral(true).queue();
-            } else {
-                e.reply("Added " + beneficiaries.size() + " people to " + ExpenseManager.getExpenseName(expenseId) + " expense.").setEphemeral(true).queue();
-            }
-        } else if (prefix.equals("expense-edit-payer")) {
-            String authorId = parts[1];
+    private void editName(ModalInteractionEvent e, ComponentId id) {
+        boolean hasChanged = false;
+        ModalMapping name = e.getValue("name");
+        if (name != null) {
+            ExpenseManager.setExpenseName(id.getLong(0), name.getAsString());
+            hasChanged = true;
+        }
+        reply(e, hasChanged ? "Name updated successfully!" : "No changes were made.", true);
+    }
 
-            if (!e.getUser().getId().equals(authorId)) {
-                e.reply("You cannot use these buttons.").setEphemeral(true).queue();
-                return;
+    private void editAmount(ModalInteractionEvent e, ComponentId id) {
+        long expenseIndex = id.getLong(0);
+        ModalMapping name = e.getValue("amount");
+        if (name != null) {
+            CurrencyUtils.MoneyFormat format = ExpenseManager.getMoneyFormat(expenseIndex);
+            try {
+                long amount = format.parse(name.getAsString());
+                ExpenseManager.setExpenseAmount(expenseIndex, amount);
+                reply(e, "Amount updated successfully!", true);
+            } catch (NumberFormatException ex) {
+                reply(e, "Invalid format. Please enter a valid amount (e.g., " + format.format(1234) + ").", true);
             }
+        }
+    }
 
-            int index = Integer.parseInt(parts[2]);
-            ExpenseManager.setExpensePayer(index, e.getMentions().getUsers().getFirst().getId());
-            e.reply("Payer Updated").setEphemeral(true).queue();
-        } else if (prefix.equals("expense-edit-beneficiary")) {
-            String authorId = parts[1];
+    private void editEvent(ModalInteractionEvent e, ComponentId id) {
+        ModalMapping name = e.getValue("event");
+        if (name != null) {
+            String eventName = name.getAsString();
+            EventData event = null;
 
-            if (!e.getUser().getId().equals(authorId)) {
-                e.reply("You cannot use these buttons.").setEphemeral(true).queue();
-                return;
+            for (EventData eve : EventManager.getAllEvents()) {
+                if (eventName.equals(eve.getName())) {
+                    event = eve;
+                }
             }
 
-            int index = Integer.parseInt(parts[2]);
-            ExpenseManager.addBenefactors(index, e.getMentions().getUsers());
-            e.reply("Benefactors Updated").setEphemeral(true).queue();
+            if (event == null) {
+                reply(e, "I could not find that event name.", true);
+            }
+            else if (!ExpenseManager.canMoveToEvent(id.getLong(0), event.getId())) {
+                reply(e, "That event uses a different currency, and amounts aren't converted between currencies.", true);
+            }
+            else
+            {
+                ExpenseManager.setExpenseLinkedEvent(id.getLong(0), event);
+                reply(e, "Linked Event updated successfully!", true);
+            }
         }
     }
 
-    @Override
-    public void handleModalInteraction(ModalInteractionEvent e) {
-        String[] parts = e.getModalId().split(":");
-        String prefix = parts[0];
-
-        if (prefix.startsWith("expense-edit-")) {
-            long expenseIndex = Long.parseLong(parts[1]);
-
-            switch (prefix) {
-                case "expense-edit-name" -> {
-                    boolean hasChanged = false;
-                    ModalMapping name = e.getValue("name");
-                    if (name != null) {
-                        ExpenseManager.setExpenseName(expenseIndex, name.getAsString());
-                        hasChanged = true;
-                    }
-                    e.reply(hasChanged ? "Name updated successfully!" : "No changes were made.").setEphemeral(true).queue();
-                }
-                case "expense-edit-amount" -> {
-                    ModalMapping name = e.getValue("amount");
-                    if (name != null) {
-                        try {
-                            double amount = Double.parseDouble(name.getAsString());
-                            ExpenseManager.setExpenseAmount(expenseIndex, amount);
-                            e.reply("Amount updated successfully!").setEphemeral(true).queue();
-                        } catch (NumberFormatException ex) {
-                            e.reply("Invalid format. Please enter a valid number (e.g., 12.34).").setEphemeral(true).queue();
-                        }
-                    }
-                }
-                case "expense-edit-event" -> {
-                    ModalMapping name = e.getValue("event");
-                    if (name != null) {
-                        String eventName = name.getAsString();
-                        EventData event = null;
-
-                        for (EventData eve : EventManager.getAllEvents()) {
-                            if (eventName.equals(eve.getName())) {
-                                event = eve;
-                                System.out.println("Cound VEvent");
-                            }
-                        }
-
-                        if (event == null) {
-                            e.reply("I could not find that event name.").setEphemeral(true).queue();
-                        }
-                        else
-                        {
-                            ExpenseManager.setExpenseLinkedEvent(expenseIndex, event);
-                            e.reply("Linked Event updated successfully!").setEphemeral(true).queue();
-                        }
-                    }
-                }
-                case "expense-edit-delete" -> {
-                    ModalMapping name = e.getValue("name");
-                    if (name == null) { e.reply("There was an issue deleting the expense!").setEphemeral(true).queue(); return; }
-                    if (name.getAsString().equals(ExpenseManager.getExpenseName(expenseIndex))) {
-                        if (EventManager.deleteEvent(expenseIndex))
-                            e.reply(name.getAsString() + " was deleted!").setEphemeral(true).queue();
-                        else
-                            e.reply("There was an issue deleting the expense!").setEphemeral(true).queue();
-                    }
-                    else e.reply("That is not the correct expense name!").setEphemeral(true).queue();
-                }
-            }
+    private void delete(ModalInteractionEvent e, ComponentId id) {
+        long expenseIndex = id.getLong(0);
+        ModalMapping name = e.getValue("name");
+        if (name == null) { reply(e, "There was an issue deleting the expense!", true); return; }
+        if (!ExpenseManager.exists(expenseIndex)) { reply(e, "Could not delete non existing expense!", true); return; }
+        if (name.getAsString().equals(ExpenseManager.getExpenseName(expenseIndex))) {
+            ExpenseManager.deleteExpense(expenseIndex);
+            reply(e, name.getAsString() + " was deleted!", true);
         }
+        else reply(e, "That is not the correct expense name!", true);
     }
 
 }
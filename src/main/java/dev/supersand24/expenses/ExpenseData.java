@@ -1,61 +1,67 @@
 package dev.supersand24.expenses;
 
+import dev.supersand24.CurrencyUtils;
 import dev.supersand24.IData;
-
-import java.util.ArrayList;
-import java.util.List;
+import dev.supersand24.SnowflakeSet;
 
 public class ExpenseData implements IData {
 
     private transient long expenseId;
     private long eventId;
     private String name;
-    private double amount;
-    private String payerId;
-    private List<String> beneficiaryIds = new ArrayList<>();
+    private long amountCents;
+    /** Amounts used to be stored in dollars. Only set while loading data saved before that changed. */
+    private Double amount;
+    private long payerId;
+    private SnowflakeSet beneficiaryIds = SnowflakeSet.EMPTY;
     private long timestamp;
 
     private boolean isSettled = false;
 
-    public ExpenseData(long id, long eventId, String name, double amount, String payerId) {
+    public ExpenseData(long id, long eventId, String name, long amountCents, long payerId) {
         this.expenseId = id;
         this.eventId = eventId;
         this.name = name;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.payerId = payerId;
-        this.beneficiaryIds.add(payerId);
+        this.beneficiaryIds = SnowflakeSet.of(payerId);
         this.timestamp = System.currentTimeMillis();
     }
 
-    public long getId() { return expenseId; }
+    public synchronized long getId() { return expenseId; }
 
-    @Override public void setId(long id) {
+    @Override public synchronized void setId(long id) {
         expenseId = id;
     }
 
-    public long getEventId() { return eventId; }
-    public void setEventId(long eventId) { this.eventId = eventId; }
+    @Override public synchronized void afterLoad() {
+        if (amount != null) {
+            amountCents = CurrencyUtils.toCents(amount);
+            amount = null;
+        }
+    }
+
+    public synchronized long getEventId() { return eventId; }
+    public synchronized void setEventId(long eventId) { this.eventId = eventId; }
 
-    public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public synchronized String getName() { return name; }
+    public synchronized void setName(String name) { this.name = name; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    public synchronized long getAmountCents() { return amountCents; }
+    public synchronized void setAmountCents(long amountCents) { this.amountCents = amountCents; }
 
-    public String getPayerId() { return payerId; }
-    public void setPayerId(String payerId) { this.payerId = payerId; }
+    public synchronized long getPayerId() { return payerId; }
+    public synchronized void setPayerId(long payerId) { this.payerId = payerId; }
 
-    public List<String> getBeneficiaryIds() { return beneficiaryIds; }
-    public void addBeneficiaryId(String beneficiaryId) {
-        if (!beneficiaryIds.contains(beneficiaryId))
-            beneficiaryIds.add(beneficiaryId);
-    }
-    public void removeBeneficiaryId(String beneficiaryId) { beneficiaryIds.remove(beneficiaryId); }
+    public synchronized SnowflakeSet getBeneficiaryIds() { return beneficiaryIds; }
+    public synchronized void setBeneficiaryIds(SnowflakeSet beneficiaryIds) { this.beneficiaryIds = beneficiaryIds; }
+    public synchronized void addBeneficiaryId(long beneficiaryId) { beneficiaryIds = beneficiaryIds.with(beneficiaryId); }
+    public synchronized void removeBeneficiaryId(long beneficiaryId) { beneficiaryIds = beneficiaryIds.without(beneficiaryId); }
 
-    public long getTimestamp() { return timestamp; }
-    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+    public synchronized long getTimestamp() { return timestamp; }
+    public synchronized void setTimestamp(long timestamp) { this.timestamp = timestamp; }
 
-    public boolean isSettled() { return isSettled; }
-    public void setSettled() { isSettled = true; }
+    public synchronized boolean isSettled() { return isSettled; }
+    public synchronized void setSettled() { isSettled = true; }
 
 }
@@ -0,0 +1,388 @@
+package dev.supersand24.expenses;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import dev.supersand24.CurrencyUtils;
+import dev.supersand24.SnowflakeSet;
+import dev.supersand24.events.EventManager;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.interactions.InteractionHook;
+import net.dv8tion.jda.api.utils.concurrent.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Imports expenses in bulk from a CSV or JSON attachment.
+ * The file is parsed as a stream, every payer and beneficiary is checked against the server in one batch,
+ * and the expenses are only created once every row is valid. Progress is shown by editing a single reply.
+ * <p>
+ * CSV files start with a header row naming the columns {@code name}, {@code amount}, {@code payer} and optionally
+ * {@code beneficiaries} and {@code event}, in any order. Beneficiaries are separated by spaces or semicolons.
+ * JSON files hold an array of objects with the same fields, where beneficiaries may also be an array.
+ * Users are given as IDs or mentions. An expense without beneficiaries only benefits its payer.
+ */
+class ExpenseImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseImporter.class);
+
+    static final int MAX_ROWS = 2000;
+    static final int MAX_FILE_SIZE = 1024 * 1024;
+    private static final int MAX_ERRORS_SHOWN = 10;
+    /** Discord doesn't return more members for a single request. */
+    private static final int MAX_MEMBERS_PER_REQUEST = 100;
+
+    /** Discord rate limits edits to a message, so progress is shown at most this often. */
+    private static final long PROGRESS_INTERVAL_MILLIS = 1500;
+
+    private static final Pattern USER = Pattern.compile("<@!?(\\d+)>|(\\d+)");
+
+    /** Imports run one at a time, off the JDA threads, since they wait on downloads and member lookups. */
+    private static final ExecutorService importer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ExpenseImporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * An expense read from the file. Rows are numbered from 1, not counting a CSV header.
+     */
+    record Row(int row, String name, long amountCents, long payerId, SnowflakeSet beneficiaryIds, long eventId) {}
+
+    private ExpenseImporter() {}
+
+    /**
+     * Downloads, checks and imports an attachment in the background, reporting on the deferred reply of the hook.
+     * @param defaultEventId The event for rows that don't name one, or 0 for no event.
+     */
+    static void start(Message.Attachment file, Guild guild, long defaultEventId, InteractionHook hook) {
+        boolean json;
+        switch (file.getFileExtension() == null ? "" : file.getFileExtension().toLowerCase(Locale.ROOT)) {
+            case "csv" -> json = false;
+            case "json" -> json = true;
+            default -> {
+                hook.editOriginal("I can only import `.csv` and `.json` files.").queue();
+                return;
+            }
+        }
+        if (file.getSize() > MAX_FILE_SIZE) {
+            hook.editOriginal("That file is too big. Imports are limited to " + MAX_FILE_SIZE / 1024 + " KB.").queue();
+            return;
+        }
+
+        importer.execute(() -> {
+            Progress progress = new Progress(hook);
+            try {
+                run(file, json, guild, defaultEventId, progress);
+            } catch (Exception e) {
+                log.error("Failed to import expenses from {}", file.getFileName(), e);
+                progress.finish("Something went wrong while importing `" + file.getFileName() + "`. Nothing was imported.");
+            }
+        });
+    }
+
+    private static void run(Message.Attachment file, boolean json, Guild guild, long defaultEventId, Progress progress) throws Exception {
+        progress.update("Reading `" + file.getFileName() + "`...");
+
+        List<String> errors = new ArrayList<>();
+        List<Row> rows;
+        try (InputStream in = file.getProxy().download().join();
+             Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            IntConsumer onRow = count -> {
+                if (count % 50 == 0) progress.update("Reading `" + file.getFileName() + "`... " + count + " rows so far.");
+            };
+            rows = json ? parseJson(reader, defaultEventId, errors, onRow) : parseCsv(reader, defaultEventId, errors, onRow);
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            progress.finish("I couldn't read `" + file.getFileName() + "`: " + e.getMessage() + "\nNothing was imported.");
+            return;
+        }
+
+        if (errors.isEmpty() && rows.isEmpty()) {
+            progress.finish("`" + file.getFileName() + "` has no expenses in it.");
+            return;
+        }
+
+        if (errors.isEmpty()) {
+            progress.update("Read " + rows.size() + " rows. Checking everyone is in the server...");
+            checkMembers(rows, guild, errors);
+        }
+
+        if (!errors.isEmpty()) {
+            StringBuilder message = new StringBuilder("Found " + errors.size() + (errors.size() == 1 ? " problem" : " problems")
+                    + " in `" + file.getFileName() + "`, so nothing was imported.\n");
+            errors.stream().limit(MAX_ERRORS_SHOWN).forEach(error -> message.append("• ").append(error).append('\n'));
+            if (errors.size() > MAX_ERRORS_SHOWN)
+                message.append("-# And ").append(errors.size() - MAX_ERRORS_SHOWN).append(" more.");
+            progress.finish(message.toString());
+            return;
+        }
+
+        long firstId = ExpenseManager.importExpenses(rows);
+        log.info("Imported {} expenses from {} as IDs {}-{}", rows.size(), file.getFileName(), firstId, firstId + rows.size() - 1);
+
+        // A total only makes sense when every row is in the same currency.
+        Set<CurrencyUtils.MoneyFormat> formats = new HashSet<>();
+        for (Row row : rows)
+            formats.add(EventManager.getMoneyFormat(row.eventId()));
+        String total = formats.size() == 1
+                ? " totalling **" + formats.iterator().next().format(rows.stream().mapToLong(Row::amountCents).sum()) + "**"
+                : "";
+        progress.finish(String.format("Imported **%d** expenses%s from `%s` (IDs `%d`-`%d`).",
+                rows.size(), total, file.getFileName(), firstId, firstId + rows.size() - 1));
+    }
+
+    /**
+     * Looks up every payer and beneficiary of the import, and reports rows naming someone who isn't in the server.
+     * Members that aren't cached are requested in batches of {@link #MAX_MEMBERS_PER_REQUEST}, all at once.
+     */
+    private static void checkMembers(List<Row> rows, Guild guild, List<String> errors) {
+        Set<Long> userIds = new HashSet<>();
+        for (Row row : rows) {
+            userIds.add(row.payerId());
+            row.beneficiaryIds().stream().forEach(userIds::add);
+        }
+
+        Set<Long> members = new HashSet<>();
+        List<Long> missing = new ArrayList<>();
+        for (long userId : userIds) {
+            if (guild.getMemberById(userId) != null) members.add(userId);
+            else missing.add(userId);
+        }
+
+        List<Task<List<Member>>> requests = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += MAX_MEMBERS_PER_REQUEST)
+            requests.add(guild.retrieveMembersByIds(missing.subList(from, Math.min(from + MAX_MEMBERS_PER_REQUEST, missing.size()))));
+        for (Task<List<Member>> request : requests)
+            for (Member member : request.get())
+                members.add(member.getIdLong());
+
+        for (Row row : rows) {
+            if (!members.contains(row.payerId()))
+                errors.add("Row " + row.row() + ": the payer <@" + row.payerId() + "> isn't in this server.");
+            row.beneficiaryIds().stream()
+                    .filter(id -> !members.contains(id))
+                    .forEach(id -> errors.add("Row " + row.row() + ": the beneficiary <@" + id + "> isn't in this server."));
+        }
+    }
+
+    /**
+     * Reads CSV rows one line at a time. Quoted fields may contain commas and doubled quotes, but not line breaks.
+     */
+    static List<Row> parseCsv(Reader reader, long defaultEventId, List<String> errors, IntConsumer progress) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+
+        String headerLine = lines.readLine();
+        if (headerLine == null) return List.of();
+        // Spreadsheet programs like to start UTF-8 files with a byte order mark.
+        if (headerLine.startsWith("\uFEFF")) headerLine = headerLine.substring(1);
+
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = splitCsvLine(headerLine);
+        for (int i = 0; i < header.size(); i++)
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        for (String required : List.of("name", "amount", "payer"))
+            if (!columns.containsKey(required))
+                throw new IllegalArgumentException("the header row has no `" + required + "` column");
+
+        List<Row> rows = new ArrayList<>();
+        int rowNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) continue;
+            if (++rowNumber > MAX_ROWS) throw new IllegalArgumentException("imports are limited to " + MAX_ROWS + " rows");
+
+            List<String> fields = splitCsvLine(line);
+            Row row = toRow(rowNumber,
+                    field(fields, columns.get("name")),
+                    field(fields, columns.get("amount")),
+                    field(fields, columns.get("payer")),
+                    splitUsers(field(fields, columns.get("beneficiaries"))),
+                    field(fields, columns.get("event")),
+                    defaultEventId, errors);
+            if (row != null) rows.add(row);
+            progress.accept(rowNumber);
+        }
+        return rows;
+    }
+
+    private static String field(List<String> fields, Integer column) {
+        return column == null || column >= fields.size() ? "" : fields.get(column).trim();
+    }
+
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') field.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"') field.append(line.charAt(++i));
+                else quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static List<String> splitUsers(String users) {
+        return users.isBlank() ? List.of() : List.of(users.trim().split("[\\s;]+"));
+    }
+
+    /**
+     * Reads a JSON array of expense objects one object at a time.
+     */
+    static List<Row> parseJson(Reader reader, long defaultEventId, List<String> errors, IntConsumer progress) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        List<Row> rows = new ArrayList<>();
+        int rowNumber = 0;
+
+        json.beginArray();
+        while (json.hasNext()) {
+            if (++rowNumber > MAX_ROWS) throw new IllegalArgumentException("imports are limited to " + MAX_ROWS + " rows");
+
+            String name = "", amount = "", payer = "", event = "";
+            List<String> beneficiaries = new ArrayList<>();
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName().toLowerCase(Locale.ROOT)) {
+                    case "name" -> name = nextText(json);
+                    case "amount" -> amount = nextText(json);
+                    case "payer" -> payer = nextText(json);
+                    case "event" -> event = nextText(json);
+                    case "beneficiaries" -> {
+                        if (json.peek() == JsonToken.BEGIN_ARRAY) {
+                            json.beginArray();
+                            while (json.hasNext()) beneficiaries.add(nextText(json));
+                            json.endArray();
+                        } else {
+                            beneficiaries.addAll(splitUsers(nextText(json)));
+                        }
+                    }
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
+            Row row = toRow(rowNumber, name, amount, payer, beneficiaries, event, defaultEventId, errors);
+            if (row != null) rows.add(row);
+            progress.accept(rowNumber);
+        }
+        json.endArray();
+        return rows;
+    }
+
+    private static String nextText(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return "";
+        }
+        return json.nextString().trim();
+    }
+
+    /**
+     * Checks one row's fields and turns them into a row, or records what is wrong with them.
+     * @return The row, or null if it has problems.
+     */
+    private static Row toRow(int rowNumber, String name, String amount, String payer, List<String> beneficiaries,
+                             String event, long defaultEventId, List<String> errors) {
+        int errorCount = errors.size();
+        String prefix = "Row " + rowNumber + ": ";
+
+        if (name.isEmpty()) errors.add(prefix + "the name is missing.");
+
+        long eventId = defaultEventId;
+        if (!event.isEmpty()) {
+            try {
+                eventId = Long.parseLong(event);
+            } catch (NumberFormatException e) {
+                errors.add(prefix + "`" + event + "` isn't an event ID.");
+            }
+        }
+        if (eventId != 0 && !EventManager.eventExists(eventId)) errors.add(prefix + "there is no event #" + eventId + ".");
+
+        // Amounts are in the currency of the expense's event.
+        long amountCents = 0;
+        try {
+            amountCents = EventManager.getMoneyFormat(eventId).parse(amount);
+            if (amountCents <= 0) errors.add(prefix + "the amount has to be more than zero.");
+        } catch (NumberFormatException e) {
+            errors.add(prefix + "`" + amount + "` isn't an amount of money.");
+        }
+
+        long payerId = parseUser(payer);
+        if (payerId == 0) errors.add(prefix + "`" + payer + "` isn't a user ID or mention.");
+
+        long[] beneficiaryIds = new long[beneficiaries.size()];
+        for (int i = 0; i < beneficiaryIds.length; i++) {
+            beneficiaryIds[i] = parseUser(beneficiaries.get(i));
+            if (beneficiaryIds[i] == 0) errors.add(prefix + "`" + beneficiaries.get(i) + "` isn't a user ID or mention.");
+        }
+
+        if (errors.size() > errorCount) return null;
+        SnowflakeSet beneficiarySet = beneficiaryIds.length == 0 ? SnowflakeSet.of(payerId) : SnowflakeSet.of(beneficiaryIds);
+        return new Row(rowNumber, name, amountCents, payerId, beneficiarySet, eventId);
+    }
+
+    /**
+     * @return The user ID in a raw ID or mention, or 0 if it is neither.
+     */
+    private static long parseUser(String text) {
+        Matcher matcher = USER.matcher(text.trim());
+        if (!matcher.matches()) return 0;
+        try {
+            return Long.parseLong(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Edits the import's reply, skipping updates that come too quickly after the last one.
+     */
+    private static final class Progress {
+
+        private final InteractionHook hook;
+        private long lastUpdate;
+
+        Progress(InteractionHook hook) {
+            this.hook = hook;
+        }
+
+        void update(String message) {
+            long now = System.currentTimeMillis();
+            if (now - lastUpdate < PROGRESS_INTERVAL_MILLIS) return;
+            lastUpdate = now;
+            hook.editOriginal(message).queue();
+        }
+
+        void finish(String message) {
+            if (message.length() > Message.MAX_CONTENT_LENGTH)
+                message = message.substring(0, Message.MAX_CONTENT_LENGTH - 3) + "...";
+            hook.editOriginal(message).queue();
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+package dev.supersand24.expenses;
+
+import dev.supersand24.SnowflakeSet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Secondary indexes over the expenses partition, kept up to date by the ExpenseManager
+ * every time it changes an expense, so lookups never scan the whole partition.
+ * <p>
+ * Every index is ordered newest first, so lists can be paged without sorting.
+ * Reads don't lock and only see expenses that are fully indexed; writes are serialized.
+ */
+class ExpenseIndex {
+
+    /**
+     * Orders expenses newest first, with the ID breaking ties between expenses created in the same millisecond.
+     */
+    record Key(long timestamp, long id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byTime = Long.compare(other.timestamp, timestamp);
+            return byTime != 0 ? byTime : Long.compare(other.id, id);
+        }
+
+        /**
+         * @return The key as text that fits in a component ID, for paging from it later.
+         */
+        String toCursor() {
+            return timestamp + "-" + id;
+        }
+
+        /**
+         * @throws NumberFormatException If the text wasn't made by {@link #toCursor()}.
+         */
+        static Key fromCursor(String cursor) {
+            int separator = cursor.indexOf('-');
+            if (separator < 0) throw new NumberFormatException("Not a cursor: " + cursor);
+            return new Key(Long.parseLong(cursor.substring(0, separator)), Long.parseLong(cursor.substring(separator + 1)));
+        }
+    }
+
+    /**
+     * The indexed fields of an expense as they were when it was last indexed,
+     * so it can be taken out of the right buckets when those fields change.
+     */
+    private record Indexed(Key key, long eventId, SnowflakeSet users, boolean settled) {}
+
+    private final Map<Long, Indexed> indexed = new ConcurrentHashMap<>();
+    private final NavigableSet<Key> all = new ConcurrentSkipListSet<>();
+    private final Map<Long, NavigableSet<Key>> byUser = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Key>> byEvent = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Key>> unsettledByEvent = new ConcurrentHashMap<>();
+
+    ExpenseIndex(Collection<ExpenseData> expenses) {
+        for (ExpenseData expense : expenses)
+            update(expense);
+    }
+
+    /**
+     * Indexes a new expense, or moves an existing one to the buckets matching its current fields.
+     */
+    synchronized void update(ExpenseData expense) {
+        SnowflakeSet users = expense.getBeneficiaryIds().with(expense.getPayerId());
+        Indexed current = new Indexed(new Key(expense.getTimestamp(), expense.getId()), expense.getEventId(), users, expense.isSettled());
+
+        Indexed previous = indexed.put(expense.getId(), current);
+        if (previous != null) unindex(previous);
+
+        all.add(current.key);
+        if (!current.settled) {
+            unsettledByEvent.computeIfAbsent(current.eventId, id -> new ConcurrentSkipListSet<>()).add(current.key);
+        }
+        byEvent.computeIfAbsent(current.eventId, id -> new ConcurrentSkipListSet<>()).add(current.key);
+        for (int i = 0; i < users.size(); i++)
+            byUser.computeIfAbsent(users.get(i), id -> new ConcurrentSkipListSet<>()).add(current.key);
+    }
+
+    synchronized void remove(long expenseId) {
+        Indexed previous = indexed.remove(expenseId);
+        if (previous != null) unindex(previous);
+    }
+
+    private void unindex(Indexed previous) {
+        all.remove(previous.key);
+        removeFromBucket(byEvent, previous.eventId, previous.key);
+        removeFromBucket(unsettledByEvent, previous.eventId, previous.key);
+        for (int i = 0; i < previous.users.size(); i++)
+            removeFromBucket(byUser, previous.users.get(i), previous.key);
+    }
+
+    private static <K> void removeFromBucket(Map<K, NavigableSet<Key>> buckets, K bucket, Key key) {
+        NavigableSet<Key> keys = buckets.get(bucket);
+        if (keys == null) return;
+        keys.remove(key);
+        if (keys.isEmpty()) buckets.remove(bucket, keys);
+    }
+
+    /**
+     * @return Every expense, newest first.
+     */
+    NavigableSet<Key> all() {
+        return Collections.unmodifiableNavigableSet(all);
+    }
+
+    /**
+     * @return Every expense of the event that has not been settled yet, newest first.
+     */
+    NavigableSet<Key> unsettled(long eventId) {
+        return Collections.unmodifiableNavigableSet(unsettledByEvent.getOrDefault(eventId, Collections.emptyNavigableSet()));
+    }
+
+    /**
+     * @return The IDs of every event with unsettled expenses.
+     */
+    Set<Long> eventsWithUnsettledExpenses() {
+        return new TreeSet<>(unsettledByEvent.keySet());
+    }
+
+    /**
+     * @return Every expense the user paid for or benefits from, newest first.
+     */
+    NavigableSet<Key> forUser(long userId) {
+        return Collections.unmodifiableNavigableSet(byUser.getOrDefault(userId, Collections.emptyNavigableSet()));
+    }
+
+    /**
+     * @return Every expense linked to the event, newest first.
+     */
+    NavigableSet<Key> forEvent(long eventId) {
+        return Collections.unmodifiableNavigableSet(byEvent.getOrDefault(eventId, Collections.emptyNavigableSet()));
+    }
+
+}
@@ -26,8 +26,10 @@ import java.awt.*;
 import java.time.Instant;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public class ExpenseManager {
 
@@ -35,14 +37,125 @@ public class ExpenseManager {
 
     private static final String EXPENSES_DATA_STORE_NAME = "expenses";
     private static final String DEBTS_DATA_STORE_NAME = "debts";
+    /** Expense and debt views show amounts in the currency of their event. */
+    private static final String EVENTS_DATA_STORE_NAME = "events";
 
     private static final int ITEMS_PER_PAGE = 5;
+    private static final int DEBTS_PER_PAGE = 10;
 
-    private static Map<Long, ExpenseData> getExpensesMap() {
+    private static volatile SettlementStrategy settlementStrategy = SettlementStrategy.OPTIMAL;
+
+    private static final Map<Long, Object> settlementLocks = new ConcurrentHashMap<>();
+
+    private static volatile ExpenseIndex expenseIndex;
+    private static volatile BalanceLedger balanceLedger;
+    private static volatile NavigableSet<Long> outstandingDebtIds;
+    private static volatile AutocompleteIndex<Long> autocomplete;
+
+    private static LongMap<ExpenseData> getExpensesMap() {
         DataPartition<ExpenseData> expenses = DataStore.get(EXPENSES_DATA_STORE_NAME);
         return expenses.getData();
     }
 
+    private static ExpenseIndex getIndex() {
+        buildIndexes();
+        return expenseIndex;
+    }
+
+    private static BalanceLedger getLedger() {
+        buildIndexes();
+        return balanceLedger;
+    }
+
+    /**
+     * Builds the expense indexes and the balance ledger from the loaded expenses the first time they are needed.
+     */
+    private static void buildIndexes() {
+        if (expenseIndex != null) return;
+        synchronized (ExpenseManager.class) {
+            if (expenseIndex != null) return;
+            Collection<ExpenseData> expenses = getExpensesMap().values();
+            balanceLedger = new BalanceLedger(expenses);
+            expenseIndex = new ExpenseIndex(expenses);
+        }
+    }
+
+    /**
+     * Brings the indexes and the balance ledger in line with an expense that was just created or changed.
+     * Both are updated under the ledger's lock, so a settlement never sees one without the other.
+     */
+    private static void reindex(ExpenseData expense) {
+        update(expense, () -> {});
+    }
+
+    /**
+     * Changes an expense and reindexes it as one step under the ledger's lock, so a settlement sees the
+     * expense either entirely before or entirely after the change.
+     */
+    private static void update(ExpenseData expense, Runnable change) {
+        BalanceLedger ledger = getLedger();
+        synchronized (ledger) {
+            change.run();
+            getIndex().update(expense);
+            ledger.update(expense);
+        }
+    }
+
+    private static void unindex(long expenseId) {
+        BalanceLedger ledger = getLedger();
+        synchronized (ledger) {
+            getIndex().remove(expenseId);
+            ledger.remove(expenseId);
+        }
+    }
+
+    /**
+     * The expenses to suggest, built from the loaded expenses the first time it is needed.
+     * Until they are used, newer expenses rank first.
+     */
+    private static AutocompleteIndex<Long> getAutocomplete() {
+        if (autocomplete != null) return autocomplete;
+        synchronized (ExpenseManager.class) {
+            if (autocomplete != null) return autocomplete;
+            AutocompleteIndex<Long> index = new AutocompleteIndex<>();
+            getExpensesMap().forEachEntry((id, expense) -> index.put(id, label(expense), expense.getTimestamp()));
+            autocomplete = index;
+            return index;
+        }
+    }
+
+    private static void suggest(ExpenseData expense) {
+        getAutocomplete().put(expense.getId(), label(expense), expense.getTimestamp());
+    }
+
+    private static String label(ExpenseData expense) {
+        return "#" + expense.getId() + " " + expense.getName();
+    }
+
+    /**
+     * Suggests expenses by name or ID, the ones used most and most recently first.
+     */
+    public static List<AutocompleteIndex.Suggestion<Long>> suggestExpenses(String query) {
+        return getAutocomplete().search(query);
+    }
+
+    public static void recordUse(long expenseId) {
+        getAutocomplete().recordUse(expenseId);
+    }
+
+    /**
+     * Looks up the expenses behind index keys, keeping their order.
+     */
+    private static List<ExpenseData> resolve(Collection<ExpenseIndex.Key> keys) {
+        Map<Long, ExpenseData> expenses = getExpensesMap();
+        List<ExpenseData> result = new ArrayList<>(keys.size());
+        for (ExpenseIndex.Key key : keys) {
+            ExpenseData expense = expenses.get(key.id());
+            if (expense != null) result.add(expense);
+        }
+        return result;
+    }
+
     /**
      * Retrieves a specific event by its ID.
      * @param expenseId The ID of the event to find.
@@ -53,11 +166,35 @@ public class ExpenseManager {
         return eventPartition.getData().get(expenseId);
     }
 
-    private static Map<Long, DebtData> getDebtMap() {
+    private static LongMap<DebtData> getDebtMap() {
         DataPartition<DebtData> debts = DataStore.get(DEBTS_DATA_STORE_NAME);
         return debts.getData();
     }
 
+    /**
+     * The IDs of every unpaid debt in order, built from the loaded debts the first time it is needed.
+     */
+    private static NavigableSet<Long> getOutstandingDebtIds() {
+        if (outstandingDebtIds != null) return outstandingDebtIds;
+        synchronized (ExpenseManager.class) {
+            if (outstandingDebtIds != null) return outstandingDebtIds;
+            NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+            getDebtMap().forEachEntry((id, debt) -> {
+                if (!debt.isPaid()) ids.add(id);
+            });
+            outstandingDebtIds = ids;
+            return ids;
+        }
+    }
+
+    /**
+     * Gets the format for an expense's amounts, which are in the currency of its event.
+     */
+    public static CurrencyUtils.MoneyFormat getMoneyFormat(long expenseId) {
+        ExpenseData expense = getExpenseById(expenseId);
+        return expense == null ? CurrencyUtils.USD : EventManager.getMoneyFormat(expense.getEventId());
+    }
+
     /**
      * Retrieves a specific event by its ID.
      * @param debtId The ID of the event to find.
@@ -68,29 +205,87 @@ public class ExpenseManager {
         return debtPartition.getData().get(debtId);
     }
 
-    public static long createExpense(String name, double amount, String payerId, EventData event) {
+    public static long createExpense(String name, long amountCents, long payerId, EventData event) {
         DataPartition<ExpenseData> expensesHashMap = DataStore.get(EXPENSES_DATA_STORE_NAME);
         long newId = expensesHashMap.getAndIncrementId();
-        Map<Long, ExpenseData> expenses = expensesHashMap.getData();
-        ExpenseData expense = new ExpenseData(newId, event.getId(), name, amount, payerId);
+        LongMap<ExpenseData> expenses = expensesHashMap.getData();
+        ExpenseData expense = new ExpenseData(newId, event.getId(), name, amountCents, payerId);
         expenses.put(newId, expense);
-        DataStore.markDirty(EXPENSES_DATA_STORE_NAME);
+        reindex(expense);
+        suggest(expense);
+        DataStore.markDirty(EXPENSES_DATA_STORE_NAME, newId);
         return expense.getId();
     }
 
+    /**
+     * Creates many expenses at once, for imports. Their IDs are reserved as one block, they are indexed
+     * under a single lock and all of them are journaled with a single flush.
+     * @param rows The validated expenses to create, in the order they should get their IDs.
+     * @return The ID of the first expense created. The rest follow it in order.
+     */
+    public static long importExpenses(List<ExpenseImporter.Row> rows) {
+        if (rows.isEmpty()) throw new IllegalArgumentException("Nothing to import.");
+        LongMap<ExpenseData> expenses = getExpensesMap();
+        long firstId = DataStore.reserveIds(EXPENSES_DATA_STORE_NAME, rows.size());
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        BalanceLedger ledger = getLedger();
+        synchronized (ledger) {
+            long id = firstId;
+            for (ExpenseImporter.Row row : rows) {
+                ExpenseData expense = new ExpenseData(id, row.eventId(), row.name(), row.amountCents(), row.payerId());
+                expense.setBeneficiaryIds(row.beneficiaryIds());
+                expenses.put(id, expense);
+                getIndex().update(expense);
+                ledger.update(expense);
+                suggest(expense);
+                ids.add(id++);
+            }
+        }
+
+        DataStore.markDirty(EXPENSES_DATA_STORE_NAME, ids);
+        return firstId;
+    }
+
     public static void deleteExpense(long key) {
         getExpensesMap().remove(key);
-        DataStore.markDirty(EXPENSES_DATA_STORE_NAME);
+        unindex(key);
+        getAutocomplete().remove(key);
+        DataStore.markDirty(EXPENSES_DATA_STORE_NAME, key);
     }
 
     public static boolean exists(long key) {
         return getExpensesMap().containsKey(key);
     }
 
+    /**
+     * Amounts are kept in the minor units of their event's currency and aren't converted, so an expense
+     * can only move to an event in the same currency.
+     */
+    public static boolean canMoveToEvent(long expenseId, long eventId) {
+        return getMoneyFormat(expenseId).getCurrency().equals(EventManager.getMoneyFormat(eventId).getCurrency());
+    }
+
+    /**
+     * For the same reason, an event's currency can only change while it has no expenses or debts recorded in the old one.
+     */
+    public static boolean canChangeEventCurrency(long eventId, Currency currency) {
+        if (EventManager.getMoneyFormat(eventId).getCurrency().equals(currency)) return true;
+        if (!getIndex().forEvent(eventId).isEmpty()) return false;
+        boolean[] hasDebts = new boolean[1];
+        getDebtMap().forEachEntry((id, debt) -> {
+            if (debt.getEventId() == eventId) hasDebts[0] = true;
+        });
+        return !hasDebts[0];
+    }
+
+    /**
+     * Links an expense to another event, keeping its amounts as they are. See {@link #canMoveToEvent(long, long)}.
+     */
     public static void linkExpenseToEvent(long index, long newEventId) {
         ExpenseData expense = getExpenseById(index);
-        expense.setEventId(newEventId);
-        DataStore.markDirty(EXPENSES_DATA_STORE_NAME);
+        update(expense, () -> expense.setEventId(newEventId));
+        DataStore.markDirty(EXPENSES_DATA_STORE_NAME, index);
     }
 
     public static String getExpenseName(long index) {
@@ -101,171 +296,214 @@ public class ExpenseManager {
     public static void setExpenseName(long index, String newName) {
         ExpenseData expense = getExpenseById(index);
         expense.setName(newName);
-        DataStore.markDirty(EXPENSES_DATA_STORE_NAME);
+        suggest(expense);
+        DataStore.markDirty(EXPENSES_DATA_STORE_NAME, index);
     }
 
-    public static void setExpenseAmount(long index, double newAmount) {
+    public static void setExpenseAmount(long index, long newAmountCents) {
         ExpenseData expense = getExpenseById(index);
-        expense.setAmount(newAmount);
-        DataStore.markDirty(EXPENSES_DATA_STORE_NAME);
+        update(expense, () -> expense.setAmountCents(newAmountCents));
+        DataStore.markDirty(EXPENSES_DATA_STORE_NAME, index);
     }
 
+    /**
+     * Links an expense to another event, keeping its amounts as they are. See {@link #canMoveToEvent(long, long)}.
+     */
     public static void setExpenseLinkedEvent(long index, EventData newEvent) {
         ExpenseData expense = getExpenseById(index);
-        expense.setEventId(newEvent.getId());
-        DataStore.markDirty(EXPENSES_DATA_STORE_NAME);
+        update(expense, () -> expense.setEventId(newEvent.getId()));
+        DataStore.markDirty(EXPENSES_DATA_STORE_NAME, index);
     }
 
-    public static void setExpensePayer(long index, String newPayerId) {
+    public static void setExpensePayer(long index, long newPayerId) {
         ExpenseData expense = getExpenseById(index);
-        expense.setPayerId(newPayerId);
-        DataStore.markDirty(EXPENSES_DATA_STORE_NAME);
+        update(expense, () -> expense.setPayerId(newPayerId));
+        DataStore.markDirty(EXPENSES_DATA_STORE_NAME, index);
     }
 
     public static void addBenefactors(long key, List<User> benefactorIds) {
         ExpenseData expense = getExpensesMap().get(key);
-        for (User user : benefactorIds)
-            expense.addBeneficiaryId(user.getId());
-        DataStore.markDirty(EXPENSES_DATA_STORE_NAME);
+        update(expense, () -> {
+            for (User user : benefactorIds)
+                expense.addBeneficiaryId(user.getIdLong());
+        });
+        DataStore.markDirty(EXPENSES_DATA_STORE_NAME, key);
     }
 
     public static List<ExpenseData> getExpensesSorted() {
-        return getExpensesMap().values().stream()
-                .sorted(Comparator.comparing(ExpenseData::getTimestamp).reversed())
-                .collect(Collectors.toList());
+        return resolve(getIndex().all());
     }
 
-    public static List<ExpenseData> getExpensesForUserSorted(String userId) {
-        return getExpensesMap().values().stream()
-                .filter(exp -> exp.getPayerId().equals(userId) || exp.getBeneficiaryIds().contains(userId))
-                .sorted(Comparator.comparing(ExpenseData::getTimestamp).reversed())
-                .collect(Collectors.toList());
+    public static List<ExpenseData> getExpensesForUserSorted(long userId) {
+        return resolve(getIndex().forUser(userId));
     }
 
-    public static void addPaymentInfo(String userId, String appName, String details) {
-        Map<String, List<PaymentInfo>> paymentMethods = DataStore.get("paymentMethods");
-        paymentMethods.computeIfAbsent(userId, k -> new ArrayList<>())
-                .add(new PaymentInfo(appName, details));
-        DataStore.markDirty("paymentMethods");
+    public static List<ExpenseData> getExpensesForEventSorted(long eventId) {
+        return resolve(getIndex().forEvent(eventId));
     }
 
-    public static boolean removePaymentInfo(String userId, String appName) {
-        List<PaymentInfo> infos = getPaymentInfoForUser(userId);
+    /**
+     * Gets a user's current net balance in every event they have unsettled expenses in.
+     * @param userId The user to look up.
+     * @return The balances in cents keyed by event ID. Positive means they are owed money.
+     */
+    public static Map<Long, Long> getBalancesForUser(long userId) {
+        return getLedger().getBalancesForUser(userId);
+    }
+
+    public static void addPaymentInfo(long userId, String appName, String details) {
+        Map<Long, List<PaymentInfo>> paymentMethods = DataStore.get("paymentMethods");
+        List<PaymentInfo> infos = paymentMethods.computeIfAbsent(userId, k -> new ArrayList<>());
+        synchronized (infos) {
+            infos.add(new PaymentInfo(appName, details));
+        }
+        DataStore.markDirty("paymentMethods", userId);
+    }
+
+    public static boolean removePaymentInfo(long userId, String appName) {
+        Map<Long, List<PaymentInfo>> paymentMethods = DataStore.get("paymentMethods");
+        List<PaymentInfo> infos = paymentMethods.get(userId);
         if (infos == null) return false;
-        boolean removed = infos.removeIf(info -> info.getAppName().equalsIgnoreCase(appName));
-        if (removed) DataStore.markDirty("paymentMethods");
+        boolean removed;
+        synchronized (infos) {
+            removed = infos.removeIf(info -> info.getAppName().equalsIgnoreCase(appName));
+        }
+        if (removed) DataStore.markDirty("paymentMethods", userId);
         return removed;
     }
 
-    public static List<PaymentInfo> getPaymentInfoForUser(String userId) {
-        Map<String, List<PaymentInfo>> paymentMethods = DataStore.get("paymentMethods");
-        return paymentMethods.getOrDefault(userId, Collections.emptyList());
+    public static List<PaymentInfo> getPaymentInfoForUser(long userId) {
+        Map<Long, List<PaymentInfo>> paymentMethods = DataStore.get("paymentMethods");
+        List<PaymentInfo> infos = paymentMethods.get(userId);
+        if (infos == null) return Collections.emptyList();
+        synchronized (infos) {
+            return List.copyOf(infos);
+        }
     }
 
+    /**
+     * Settles every event with unsettled expenses. Events never share expenses,
+     * so each one is settled on its own and they all run at the same time.
+     * @return The debts created for every event together.
+     */
     public static SettlementResult calculateSettlement() {
-        List<ExpenseData> unsettledExpenses = getExpensesMap().values().stream()
-                .filter(expense -> !expense.isSettled())
+        List<SettlementResult> results = getIndex().eventsWithUnsettledExpenses().parallelStream()
+                .map(ExpenseManager::calculateSettlement)
                 .toList();
 
+        List<DebtData> newDebts = new ArrayList<>();
+        int processedCount = 0;
+        for (SettlementResult result : results) {
+            newDebts.addAll(result.newDebts());
+            processedCount += result.expensesProcessedCount();
+        }
+        return new SettlementResult(newDebts, processedCount);
+    }
+
+    /**
+     * Turns the unsettled expenses of a single event into debts, tagged with that event.
+     * Settling the same event twice at once is serialized, different events don't wait on each other.
+     * @param eventId The event to settle.
+     * @return The debts created for the event.
+     */
+    public static SettlementResult calculateSettlement(long eventId) {
+        synchronized (settlementLocks.computeIfAbsent(eventId, id -> new Object())) {
+            return settleEvent(eventId);
+        }
+    }
+
+    private static SettlementResult settleEvent(long eventId) {
+        // Step 1: Take the event's unsettled expenses together with the running balance of every user they add up to,
+        // and mark them settled before letting go of the ledger. Expenses only change under its lock, so no change
+        // can slip in between the balances the debts are worked out from and the expenses being settled.
+        List<ExpenseData> unsettledExpenses;
+        BalanceLedger.Balances balances;
+        BalanceLedger ledger = getLedger();
+        synchronized (ledger) {
+            unsettledExpenses = resolve(getIndex().unsettled(eventId));
+            balances = ledger.getBalances(eventId);
+            for (ExpenseData expense : unsettledExpenses) {
+                expense.setSettled();
+                getIndex().update(expense);
+                ledger.update(expense);
+            }
+        }
+
         // Get the count of expenses we're about to process
         int processedCount = unsettledExpenses.size();
 
         if (unsettledExpenses.isEmpty())
             return new SettlementResult(Collections.emptyList(), 0);
 
-        // Step 2: Calculate the net balance for every user.
-        Map<String, Double> balances = new HashMap<>();
-        for (ExpenseData expense : unsettledExpenses) {
-            String payerId = expense.getPayerId();
-            double totalAmount = expense.getAmount();
-            List<String> beneficiaries = expense.getBeneficiaryIds();
+        // Step 3: Work out who pays whom. Balances are exact cents and always add up to zero,
+        // so every payment settles its debtor or creditor completely.
+        long[] userIds = balances.userIds();
+        List<SettlementStrategy.Transfer> transfers = settlementStrategy.settle(balances.cents());
 
-            if (beneficiaries == null || beneficiaries.isEmpty()) continue;
-
-            balances.put(payerId, balances.getOrDefault(payerId, 0.0) + totalAmount);
-            double share = totalAmount / beneficiaries.size();
-            for (String beneficiaryId : beneficiaries)
-                balances.put(beneficiaryId, balances.getOrDefault(beneficiaryId, 0.0) - share);
-        }
-
-        // Step 3: Separate users into Debtors (owe money) and Creditors (are owed money).
-        List<Map.Entry<String, Double>> creditors = new ArrayList<>();
-        List<Map.Entry<String, Double>> debtors = new ArrayList<>();
-        for (Map.Entry<String, Double> entry : balances.entrySet()) {
-            if (entry.getValue() > 0.01) creditors.add(entry);
-            else if (entry.getValue() < -0.01) debtors.add(entry);
-        }
-
-        if (debtors.isEmpty() || creditors.isEmpty()) {
-            unsettledExpenses.forEach(ExpenseData::setSettled);
-            DataStore.markDirty("expenses");
+        if (transfers.isEmpty()) {
+            DataStore.markDirty(EXPENSES_DATA_STORE_NAME, unsettledExpenses.stream().map(ExpenseData::getId).toList());
             return new SettlementResult(Collections.emptyList(), 0);
         }
 
-        // Step 4: Generate and store new Debt objects via the simplification algorithm.
+        // Step 4: Store every payment as a new Debt object, with IDs reserved for all of them at once.
+        DataPartition<DebtData> debtsHashMap = DataStore.get(DEBTS_DATA_STORE_NAME);
         List<DebtData> newDebts = new ArrayList<>();
-        while (!debtors.isEmpty() && !creditors.isEmpty()) {
-            Map.Entry<String, Double> debtorEntry = debtors.getFirst();
-            Map.Entry<String, Double> creditorEntry = creditors.getFirst();
-            double transferAmount = Math.min(Math.abs(debtorEntry.getValue()), creditorEntry.getValue());
-
-            // Create a new persistent Debt object
-
-            DataPartition<DebtData> debtsHashMap = DataStore.get("debts");
-            long newDebtId = debtsHashMap.getAndIncrementId();
-            DebtData newDebt = new DebtData(newDebtId, 0, debtorEntry.getKey(), creditorEntry.getKey(), transferAmount);
-
-            // Store it in our main data store and add to a temporary list to return
+        long newDebtId = DataStore.reserveIds(DEBTS_DATA_STORE_NAME, transfers.size());
+        for (SettlementStrategy.Transfer transfer : transfers) {
+            DebtData newDebt = new DebtData(newDebtId, eventId, userIds[transfer.debtor()], userIds[transfer.creditor()], transfer.cents());
             debtsHashMap.getData().put(newDebtId, newDebt);
+            getOutstandingDebtIds().add(newDebtId);
+            DataStore.markDirty(DEBTS_DATA_STORE_NAME, newDebtId++);
             newDebts.add(newDebt);
-
-            // Update balances for the next loop iteration
-            debtorEntry.setValue(debtorEntry.getValue() + transferAmount);
-            creditorEntry.setValue(creditorEntry.getValue() - transferAmount);
-
-            // If a debtor's balance is now effectively zero, remove them from the list.
-            if (Math.abs(debtorEntry.getValue()) < 0.01)
-                debtors.removeFirst();
-
-            // If a creditor's balance is now effectively zero, remove them from the list.
-            if (creditorEntry.getValue() < 0.01)
-                creditors.removeFirst();
         }
 
-        // Step 5: Mark the processed expenses as settled.
-        for (ExpenseData expense : unsettledExpenses)
-            expense.setSettled();
+        // Step 5: Persist the expenses as settled, after the debts they turned into.
+        DataStore.markDirty(EXPENSES_DATA_STORE_NAME, unsettledExpenses.stream().map(ExpenseData::getId).toList());
 
-        // Step 6: Persist all changes and return.
-        DataStore.markDirty("debts");
         return new SettlementResult(newDebts, processedCount);
     }
 
+    /**
+     * Changes how settle-up decides who pays whom.
+     * @param strategy The strategy to use for every settlement from now on.
+     */
+    public static void setSettlementStrategy(SettlementStrategy strategy) {
+        settlementStrategy = strategy;
+    }
+
     public static List<DebtData> getOutstandingDebts() {
-        return getDebtMap().values().stream()
-                .filter(debt -> !debt.isPaid())
-                .sorted(Comparator.comparing(DebtData::getDebtId))
-                .collect(Collectors.toList());
+        return resolveDebts(getOutstandingDebtIds());
     }
 
-    public static String markDebtAsPaid(long debtId, String actioningUserId) {
+    private static List<DebtData> resolveDebts(Collection<Long> debtIds) {
+        LongMap<DebtData> debts = getDebtMap();
+        List<DebtData> result = new ArrayList<>(debtIds.size());
+        for (long debtId : debtIds) {
+            DebtData debt = debts.get(debtId);
+            if (debt != null) result.add(debt);
+        }
+        return result;
+    }
+
+    public static String markDebtAsPaid(long debtId, long actioningUserId) {
         DebtData debt = getDebtMap().get(debtId);
         if (debt == null) return "This debt doesn't exist in my library!";
         if (debt.isPaid()) return "You already settled this debt.";
 
-        if (!debt.getCreditorId().equals(actioningUserId)) {
+        if (debt.getCreditorId() != actioningUserId) {
             return "You aren't (<@" + debt.getCreditorId() + ">)." + ArisannaBot.emojiBonkArisanna;
         }
 
         debt.markAsPaid();
-        DataStore.markDirty("debts");
+        getOutstandingDebtIds().remove(debtId);
+        DataStore.markDirty(DEBTS_DATA_STORE_NAME, debtId);
 
         return String.format("Success! Debt #%d (%s owed by <@%s>) has been marked as paid.",
-                debtId, CurrencyUtils.formatAsUSD(debt.getAmount()), debt.getDebtorId());
+                debtId, EventManager.getMoneyFormat(debt.getEventId()).format(debt.getAmountCents()), debt.getDebtorId());
     }
 
-    public static MessageCreateData buildSettlementView() {
-        SettlementResult result = calculateSettlement();
+    public static MessageCreateData buildSettlementView(Long eventId) {
+        SettlementResult result = eventId == null ? calculateSettlement() : calculateSettlement(eventId);
         EmbedBuilder embed = new EmbedBuilder();
         embed.setColor(Color.GREEN);
         embed.setTitle("Settlement Plan");
@@ -289,14 +527,14 @@ public class ExpenseManager {
                         "• <@%s> owes <@%s> **%s**\n",
                         debt.getDebtorId(),
                         debt.getCreditorId(),
-                        CurrencyUtils.formatAsUSD(debt.getAmount())
+                        EventManager.getMoneyFormat(debt.getEventId()).format(debt.getAmountCents())
                 ));
             }
             embed.addField("New Payment Plan", paymentPlan.toString(), false);
             embed.setFooter("What's next? Use /debt list and /debt markpaid to complete payments.");
         }
 
-        Button explanationButton = Button.secondary("settleup-explain", "How is this calculated?")
+        Button explanationButton = Button.secondary(ComponentId.of("expense", "settleup-explain"), "How is this calculated?")
                 .withEmoji(ArisannaBot.emojiLoadingArisanna);
 
         return new MessageCreateBuilder()
@@ -305,22 +543,86 @@ public class ExpenseManager {
                 .build();
     }
 
-    public static MessageCreateData buildExpenseListPage(int page, String authorId, String targetId) {
-        List<ExpenseData> expenses = targetId.equals("all")
-                ? getExpensesSorted()
-                : getExpensesForUserSorted(targetId);
+    /**
+     * Builds the first page of the expense list, newest first.
+     * @param filter "all", or the ID of a user to only list the expenses they paid for or benefit from.
+     */
+    public static MessageCreateData buildExpenseListPage(String authorId, String filter) {
+        if (getExpenseListIndex(filter).isEmpty()) return buildEmptyExpenseListMessage();
 
-        if (expenses.isEmpty())
-            return new MessageCreateBuilder().setContent("No expenses found matching criteria.").build();
+        Container container = RenderCache.get("expense-list:" + filter, authorId,
+                () -> buildExpenseListContainer(Page.first(getExpenseListIndex(filter), ITEMS_PER_PAGE), 1, filter, RenderCache.AUTHOR),
+                EXPENSES_DATA_STORE_NAME, EVENTS_DATA_STORE_NAME);
+        return buildExpenseListMessage(container);
+    }
 
+    /**
+     * Builds the page of the expense list next to the one the cursor came from.
+     * @param page The number of the page being turned to, only used for display.
+     * @param cursor The last expense of the current page when going forward, or its first expense when going back.
+     * @param forward Whether to turn to the next page rather than the previous one.
+     */
+    public static MessageCreateData buildExpenseListPage(String authorId, String filter, int page, String cursor, boolean forward) {
+        ExpenseIndex.Key key = ExpenseIndex.Key.fromCursor(cursor);
+        if (getExpenseListIndex(filter).isEmpty()) return buildEmptyExpenseListMessage();
+
+        Container container = RenderCache.get("expense-list:" + filter + ":" + page + ":" + cursor + ":" + forward, authorId, () -> {
+            NavigableSet<ExpenseIndex.Key> index = getExpenseListIndex(filter);
+            Page<ExpenseIndex.Key> expenses = forward ? Page.after(index, key, ITEMS_PER_PAGE) : Page.before(index, key, ITEMS_PER_PAGE);
+            // Landing on the first page because earlier expenses were removed resets the count.
+            return buildExpenseListContainer(expenses, expenses.hasPrevious() ? Math.max(page, 2) : 1, filter, RenderCache.AUTHOR);
+        }, EXPENSES_DATA_STORE_NAME, EVENTS_DATA_STORE_NAME);
+        return buildExpenseListMessage(container);
+    }
+
+    private static NavigableSet<ExpenseIndex.Key> getExpenseListIndex(String filter) {
+        return filter.equals("all") ? getIndex().all() : getIndex().forUser(Long.parseLong(filter));
+    }
+
+    private static MessageCreateData buildEmptyExpenseListMessage() {
+        return new MessageCreateBuilder().setContent("No expenses found matching criteria.").build();
+    }
+
+    private static MessageCreateData buildExpenseListMessage(Container container) {
         return new MessageCreateBuilder()
-                .addComponents(buildExpenseListContainer(expenses, page, authorId))
+                .addComponents(container)
                 .useComponentsV2()
                 .build();
     }
 
+    public static MessageCreateData buildBalanceView(User targetUser) {
+        Map<Long, Long> balances = getBalancesForUser(targetUser.getIdLong());
+        EmbedBuilder embed = new EmbedBuilder();
+        embed.setAuthor(targetUser.getName() + " Balance", null, targetUser.getEffectiveAvatarUrl());
+        embed.setColor(Color.CYAN);
+
+        // Events can be in different currencies, so balances only add up within the same currency.
+        Map<CurrencyUtils.MoneyFormat, Long> totals = new LinkedHashMap<>();
+        balances.forEach((eventId, balance) -> totals.merge(EventManager.getMoneyFormat(eventId), balance, Long::sum));
+
+        List<String> parts = new ArrayList<>();
+        totals.forEach((format, total) -> {
+            if (total > 0) parts.add("is owed **" + format.format(total) + "**");
+            else if (total < 0) parts.add("owes **" + format.format(-total) + "**");
+        });
+        if (parts.isEmpty())
+            embed.setDescription(targetUser.getAsMention() + " is all square.");
+        else
+            embed.setDescription(targetUser.getAsMention() + " " + String.join(" and ", parts) + " in total.");
+
+        balances.forEach((eventId, balance) -> embed.addField(
+                eventId == 0 ? "No Event" : EventManager.getEventName(eventId),
+                (balance >= 0 ? "Owed " : "Owes ") + EventManager.getMoneyFormat(eventId).format(Math.abs(balance)),
+                true));
+        embed.setFooter("Only unsettled expenses count. Use /expense settleup to turn them into debts.");
+
+        return new MessageCreateBuilder()
+                .addEmbeds(embed.build())
+                .build();
+    }
+
     public static MessageCreateData buildPaymentMethodView(User targetUser) {
-        List<PaymentInfo> paymentInfos = getPaymentInfoForUser(targetUser.getId());
+        List<PaymentInfo> paymentInfos = getPaymentInfoForUser(targetUser.getIdLong());
         EmbedBuilder embed = new EmbedBuilder();
         embed.setAuthor(targetUser.getName() + " Payment Methods", null, targetUser.getEffectiveAvatarUrl());
         embed.setColor(Color.MAGENTA);
@@ -338,17 +640,6 @@ public class ExpenseManager {
                 .build();
     }
 
-    public static MessageCreateData generateExpenseListMessage(String authorId, int page) {
-        List<ExpenseData> expenses = ExpenseManager.getExpensesSorted();
-        if (expenses.isEmpty()) {
-            return new MessageCreateBuilder().setContent("No expenses found matching criteria.").build();
-        }
-        return new MessageCreateBuilder()
-                .addComponents(buildExpenseListContainer(expenses, page, authorId))
-                .useComponentsV2()
-                .build();
-    }
-
     public static MessageCreateData generateExpenseDetailMessage(String authorId, int index) {
         return new MessageCreateBuilder()
                 .addComponents(buildExpenseDetailContainer(index, authorId))
@@ -363,88 +654,139 @@ public class ExpenseManager {
                 .build();
     }
 
-    public static MessageCreateData generateDebtListMessage(String authorId, int page) {
-        return new MessageCreateBuilder()
-                .addComponents(buildDebtListContainer(page, authorId))
-                .useComponentsV2()
-                .build();
+    /**
+     * Builds the first page of the list of unpaid debts, oldest first.
+     */
+    public static MessageCreateData generateDebtListMessage(String authorId) {
+        return generateDebtListMessage(RenderCache.get("debt-list", authorId,
+                () -> buildDebtListContainer(Page.first(getOutstandingDebtIds(), DEBTS_PER_PAGE), 1, RenderCache.AUTHOR),
+                DEBTS_DATA_STORE_NAME, EVENTS_DATA_STORE_NAME));
+    }
+
+    /**
+     * Builds the page of the debt list next to the one the cursor came from.
+     * @param page The number of the page being turned to, only used for display.
+     * @param cursor The last debt of the current page when going forward, or its first debt when going back.
+     * @param forward Whether to turn to the next page rather than the previous one.
+     */
+    public static MessageCreateData generateDebtListMessage(String authorId, int page, long cursor, boolean forward) {
+        return generateDebtListMessage(RenderCache.get("debt-list:" + page + ":" + cursor + ":" + forward, authorId, () -> {
+            NavigableSet<Long> index = getOutstandingDebtIds();
+            Page<Long> debts = forward ? Page.after(index, cursor, DEBTS_PER_PAGE) : Page.before(index, cursor, DEBTS_PER_PAGE);
+            return buildDebtListContainer(debts, debts.hasPrevious() ? Math.max(page, 2) : 1, RenderCache.AUTHOR);
+        }, DEBTS_DATA_STORE_NAME, EVENTS_DATA_STORE_NAME));
     }
 
-    public static MessageCreateData generateDebtDetailMessage(String authorId, int index, JDA jda) {
+    private static MessageCreateData generateDebtListMessage(Container container) {
         return new MessageCreateBuilder()
-                .addComponents(buildDebtDetailContainer(index, authorId, jda))
+                .addComponents(container)
                 .useComponentsV2()
                 .build();
     }
 
-    public static Container buildExpenseListContainer(List<ExpenseData> expenses, int page, String authorId) {
-        int totalPages = (int) Math.ceil((double) expenses.size() / ITEMS_PER_PAGE);
-        int startIndex = page * ITEMS_PER_PAGE;
+    /**
+     * Builds the details of a debt once the names of the people involved are known, without blocking on Discord.
+     */
+    public static CompletableFuture<MessageCreateData> generateDebtDetailMessage(String authorId, int index, JDA jda) {
+        DebtData debt = getDebtById(index);
+        if (debt == null) {
+            log.error("Could not find Debt # {} to show Details.", index);
+            return CompletableFuture.completedFuture(generateDebtListMessage(authorId));
+        }
+
+        return UserResolver.getName(jda, debt.getDebtorId())
+                .thenCombine(UserResolver.getName(jda, debt.getCreditorId()),
+                        (debtor, creditor) -> new MessageCreateBuilder()
+                                .addComponents(buildDebtDetailContainer(debt, debtor, creditor))
+                                .useComponentsV2()
+                                .build());
+    }
 
+    /**
+     * Builds the first page of the list of all expenses.
+     */
+    public static Container buildExpenseListContainer(String authorId) {
+        return RenderCache.get("expense-list:all", authorId,
+                () -> buildExpenseListContainer(Page.first(getIndex().all(), ITEMS_PER_PAGE), 1, "all", RenderCache.AUTHOR),
+                EXPENSES_DATA_STORE_NAME, EVENTS_DATA_STORE_NAME);
+    }
+
+    private static Container buildExpenseListContainer(Page<ExpenseIndex.Key> page, int pageNumber, String filter, String authorId) {
         List<ContainerChildComponent> components = new ArrayList<>();
 
         components.add(TextDisplay.of("## List of All Expenses"));
+        if (!filter.equals("all"))
+            components.add(TextDisplay.of("Only showing expenses involving <@" + filter + ">."));
         components.add(Separator.createDivider(Separator.Spacing.SMALL));
 
-        //Add Text Display for current filter here
-
         Function<ExpenseData, String> formatter = (expense) -> String.format(
                 "**%s** - %s\nPaid by <@%s> | ID: `%s`\n\n",
                 expense.getName(),
-                CurrencyUtils.formatAsUSD(expense.getAmount()),
+                EventManager.getMoneyFormat(expense.getEventId()).format(expense.getAmountCents()),
                 expense.getPayerId(),
                 expense.getId()
         );
 
-        for (int i = 0; i < ITEMS_PER_PAGE && (startIndex + i) < expenses.size(); i++) {
-            ExpenseData expense = expenses.get(startIndex + i);
+        for (ExpenseData expense : resolve(page.items())) {
             components.add(TextDisplay.of(formatter.apply(expense)));
-            components.add(ActionRow.of(Button.of(ButtonStyle.SECONDARY, "expense-list-zoom:" + authorId + ":" + expense.getId(), "Details")));
+            components.add(ActionRow.of(Button.of(ButtonStyle.SECONDARY, ComponentId.of("expense", "list-zoom", authorId, expense.getId()), "Details")));
             components.add(Separator.createDivider(Separator.Spacing.SMALL));
         }
 
-        components.add(TextDisplay.of("-# Page " + (page + 1) + " of " + totalPages));
-        components.add(buildExpenseListActionRow(expenses, authorId, page));
+        components.add(TextDisplay.of("-# Page " + pageNumber));
+        if (!page.isEmpty())
+            components.add(buildExpenseListActionRow(page, pageNumber, filter, authorId));
 
         return Container.of(components);
     }
 
-    private static ActionRow buildExpenseListActionRow(List<ExpenseData> expenses, String authorId, int page) {
-        int totalPages = (int) Math.ceil((double) expenses.size() / ITEMS_PER_PAGE);
-
-        Button prev = Button.secondary("expense-list-prev:" + authorId + ":" + page, "◀️ Previous").withDisabled(page == 0);
-        Button next = Button.secondary("expense-list-next:" + authorId + ":" + page, "Next ▶️").withDisabled(page >= totalPages - 1);
+    /**
+     * The buttons carry the first and last expense of the page, so turning the page is a range query from there.
+     */
+    private static ActionRow buildExpenseListActionRow(Page<ExpenseIndex.Key> page, int pageNumber, String filter, String authorId) {
+        Button prev = Button.secondary(ComponentId.of("expense", "list-prev", authorId, filter, pageNumber - 1, page.first().toCursor()), "◀️ Previous")
+                .withDisabled(!page.hasPrevious());
+        Button next = Button.secondary(ComponentId.of("expense", "list-next", authorId, filter, pageNumber + 1, page.last().toCursor()), "Next ▶️")
+                .withDisabled(!page.hasNext());
 
         return ActionRow.of(prev, next);
     }
 
     public static Container buildExpenseDetailContainer(int index, String authorId) {
-        ExpenseData expense = getExpenseById(index);
+        return RenderCache.get("expense-detail:" + index, authorId,
+                () -> buildExpenseDetailContainer(getExpenseById(index), index, RenderCache.AUTHOR), EXPENSES_DATA_STORE_NAME, EVENTS_DATA_STORE_NAME);
+    }
 
+    private static Container buildExpenseDetailContainer(ExpenseData expense, int index, String authorId) {
         if (expense == null) {
             log.error("Could not find Expense # {} to show Details.", index);
-            return buildExpenseListContainer(ExpenseManager.getExpensesSorted(), 0, authorId);
+            return buildExpenseListContainer(authorId);
         }
 
         List<ContainerChildComponent> components = new ArrayList<>();
 
         components.add(TextDisplay.of("## Expense Details: " + expense.getName()));
 
-        double share = expense.getBeneficiaryIds().isEmpty()
-                ? 0.0
-                : expense.getAmount() / expense.getBeneficiaryIds().size();
+        // Uneven splits give some people one cent more, so show both amounts when that happens.
+        int beneficiaryCount = expense.getBeneficiaryIds().size();
+        long[] shares = beneficiaryCount == 0 ? new long[] { 0 } : CurrencyUtils.splitCents(expense.getAmountCents(), beneficiaryCount);
+        long smallestShare = shares[shares.length - 1];
+        CurrencyUtils.MoneyFormat format = EventManager.getMoneyFormat(expense.getEventId());
+        String share = shares[0] == smallestShare
+                ? format.format(smallestShare)
+                : format.format(smallestShare) + " – " + format.format(shares[0]);
 
-        components.add(TextDisplay.of("### Total Amount: " + CurrencyUtils.formatAsUSD(expense.getAmount())));
+        components.add(TextDisplay.of("### Total Amount: " + format.format(expense.getAmountCents())));
         components.add(TextDisplay.of("### Paid By: <@" + expense.getPayerId() + ">"));
         components.add(Separator.createDivider(Separator.Spacing.SMALL));
-        components.add(TextDisplay.of("### Share per Person: " + CurrencyUtils.formatAsUSD(share)));
+        components.add(TextDisplay.of("### Share per Person: " + share));
         components.add(TextDisplay.of("### Beneficiaries: " + expense.getBeneficiaryIds().size()));
 
         components.add(Separator.createDivider(Separator.Spacing.SMALL));
         components.add(TextDisplay.of("-# Expense ID: " + expense.getId()));
         components.add(ActionRow.of(
-                Button.primary("expense-edit:" + authorId + ":" + index, "Edit"),
-                Button.danger("expense-detail-back:" + authorId, "List")
+                Button.primary(ComponentId.of("expense", "edit", authorId, index), "Edit"),
+                Button.danger(ComponentId.of("expense", "detail-back", authorId), "List")
         ));
 
         return Container.of(components);
@@ -455,7 +797,7 @@ public class ExpenseManager {
 
         if (expense == null) {
             log.error("Could not find Expense # {} to show Details.", index);
-            return buildExpenseListContainer(ExpenseManager.getExpensesSorted(), 0, authorId);
+            return buildExpenseListContainer(authorId);
         }
 
         List<ContainerChildComponent> components = new ArrayList<>();
@@ -464,47 +806,45 @@ public class ExpenseManager {
         components.add(Separator.createDivider(Separator.Spacing.SMALL));
         components.add(TextDisplay.of("Click on the different buttons/drop downs to edit values for this event."));
         components.add(ActionRow.of(
-                Button.secondary("expense-edit-name:" + authorId + ":" + expense.getId(), "Name"),
-                Button.secondary("expense-edit-amount:" + authorId + ":" + expense.getId(), "Amount"),
-                Button.secondary("expense-edit-event:" + authorId + ":" + expense.getId(), "Linked Event")
+                Button.secondary(ComponentId.of("expense", "edit-name", authorId, expense.getId()), "Name"),
+                Button.secondary(ComponentId.of("expense", "edit-amount", authorId, expense.getId()), "Amount"),
+                Button.secondary(ComponentId.of("expense", "edit-event", authorId, expense.getId()), "Linked Event")
         ));
 
         components.add(TextDisplay.of("Payer"));
         EntitySelectMenu.Builder payerMenu = EntitySelectMenu.create(
-                "expense-edit-payer:" + authorId + ":" + expense.getId(),
+                ComponentId.of("expense", "edit-payer", authorId, expense.getId()),
                 EntitySelectMenu.SelectTarget.USER
         );
-        if (!expense.getPayerId().isEmpty())
+        if (expense.getPayerId() != 0)
             payerMenu.setDefaultValues(EntitySelectMenu.DefaultValue.user(expense.getPayerId()));
         components.add(ActionRow.of(payerMenu.build()));
 
         components.add(TextDisplay.of("Beneficiary"));
         EntitySelectMenu.Builder beneficiaryMenu = EntitySelectMenu.create(
-                "expense-edit-beneficiary:" + authorId + ":" + expense.getId(),
+                ComponentId.of("expense", "edit-beneficiary", authorId, expense.getId()),
                 EntitySelectMenu.SelectTarget.USER
         );
         beneficiaryMenu.setMaxValues(EntitySelectMenu.OPTIONS_MAX_AMOUNT);
 
         List<EntitySelectMenu.DefaultValue> defaults = expense.getBeneficiaryIds().stream()
-                .map(EntitySelectMenu.DefaultValue::user)
+                .mapToObj(EntitySelectMenu.DefaultValue::user)
                 .toList();
         beneficiaryMenu.setDefaultValues(defaults);
         components.add(ActionRow.of(beneficiaryMenu.build()));
 
         components.add(Separator.createDivider(Separator.Spacing.SMALL));
         components.add(ActionRow.of(
-                Button.primary("expense-edit-view:" + authorId + ":" + expense.getId(), "View Expense"),
-                Button.secondary("expense-edit-view-list:" + authorId + ":" + expense.getId(), "View List"),
-                Button.danger("expense-edit-delete:" + authorId + ":" + expense.getId(), "Delete Expense")
+                Button.primary(ComponentId.of("expense", "edit-view", authorId, expense.getId()), "View Expense"),
+                Button.secondary(ComponentId.of("expense", "edit-view-list", authorId, expense.getId()), "View List"),
+                Button.danger(ComponentId.of("expense", "edit-delete", authorId, expense.getId()), "Delete Expense")
         ));
 
         return Container.of(components);
     }
 
-    private static Container buildDebtListContainer(int page, String authorId) {
-        List<DebtData> outstandingDebts = getOutstandingDebts();
-        int totalPages = (int) Math.ceil((double) outstandingDebts.size() / ITEMS_PER_PAGE);
-        int startIndex = page * ITEMS_PER_PAGE;
+    private static Container buildDebtListContainer(Page<Long> page, int pageNumber, String authorId) {
+        List<DebtData> outstandingDebts = resolveDebts(page.items());
 
         List<ContainerChildComponent> components = new ArrayList<>();
 
@@ -519,34 +859,38 @@ public class ExpenseManager {
                         "• <@%s> owes <@%s> **%s**\n  (ID: `%d`)\n",
                         debt.getDebtorId(),
                         debt.getCreditorId(),
-                        CurrencyUtils.formatAsUSD(debt.getAmount()),
+                        EventManager.getMoneyFormat(debt.getEventId()).format(debt.getAmountCents()),
                         debt.getDebtId()
                 )));
             }
         }
 
-        components.add(TextDisplay.of("-# Page " + (page + 1) + " of " + totalPages));
+        if (page.hasPrevious() || page.hasNext()) {
+            components.add(TextDisplay.of("-# Page " + pageNumber));
+            components.add(ActionRow.of(
+                    Button.secondary(ComponentId.of("debt", "list-prev", authorId, pageNumber - 1, page.first()), "◀️ Previous")
+                            .withDisabled(!page.hasPrevious()),
+                    Button.secondary(ComponentId.of("debt", "list-next", authorId, pageNumber + 1, page.last()), "Next ▶️")
+                            .withDisabled(!page.hasNext())
+            ));
+        }
 
         return Container.of(components);
     }
 
-    private static Container buildDebtDetailContainer(int index, String authorId, JDA jda) {
-        DebtData debt = getDebtById(index);
-
-        User debtor = jda.retrieveUserById(debt.getDebtorId()).complete();
-        User creditor = jda.retrieveUserById(debt.getCreditorId()).complete();
+    private static Container buildDebtDetailContainer(DebtData debt, String debtor, String creditor) {
         //Event event = EventManager.getEventById(debt.getEventId());
 
         List<ContainerChildComponent> components = new ArrayList<>();
 
-        components.add(TextDisplay.of("## Debt Details: " + debtor.getName() + " → " + creditor.getName()));
-        components.add(TextDisplay.of("Amount Owed\n" + CurrencyUtils.formatAsUSD(debt.getAmount())));
+        components.add(TextDisplay.of("## Debt Details: " + debtor + " → " + creditor));
+        components.add(TextDisplay.of("Amount Owed\n" + EventManager.getMoneyFormat(debt.getEventId()).format(debt.getAmountCents())));
 
         List<PaymentInfo> paymentInfos = ExpenseManager.getPaymentInfoForUser(debt.getCreditorId());
         if (paymentInfos.isEmpty())
             components.add(TextDisplay.of("This user has not added any payment information."));
         else {
-            components.add(TextDisplay.of("How to Pay " + creditor.getName()));
+            components.add(TextDisplay.of("How to Pay " + creditor));
             for (PaymentInfo info : paymentInfos) {
                 components.add(TextDisplay.of(String.format("**%s:** `%s`\n", info.getAppName(), info.getDetail())));
             }
@@ -555,8 +899,12 @@ public class ExpenseManager {
         return Container.of(components);
     }
 
-    public static Container buildPaymentInfoDetailContainer() {
-        SettlementResult result = calculateSettlement();
+    /**
+     * Settles up and shows the resulting payment plan.
+     * @param eventId The event to settle, or null to settle every event.
+     */
+    public static Container buildPaymentInfoDetailContainer(Long eventId) {
+        SettlementResult result = eventId == null ? calculateSettlement() : calculateSettlement(eventId);
 
         List<ContainerChildComponent> components = new ArrayList<>();
 
@@ -581,14 +929,14 @@ public class ExpenseManager {
                         "• <@%s> owes <@%s> **%s**\n",
                         debt.getDebtorId(),
                         debt.getCreditorId(),
-                        CurrencyUtils.formatAsUSD(debt.getAmount())
+                        EventManager.getMoneyFormat(debt.getEventId()).format(debt.getAmountCents())
                 )));
             }
 
             components.add(TextDisplay.of("-# What's next? Use /debt list and /debt markpaid to complete payments."));
         }
 
-        Button explanationButton = Button.secondary("settleup-explain", "How is this calculated?")
+        Button explanationButton = Button.secondary(ComponentId.of("expense", "settleup-explain"), "How is this calculated?")
                 .withEmoji(ArisannaBot.emojiLoadingArisanna);
 
         components.add(ActionRow.of(explanationButton));
@@ -599,7 +947,7 @@ public class ExpenseManager {
     public static Modal generateEditExpenseNameModal(int index) {
         ExpenseData expense = getExpenseById(index);
 
-        return Modal.create("expense-edit-name:" + index, "Edit Name of Expense # " + expense.getId())
+        return Modal.create(ComponentId.of("expense", "edit-name", index), "Edit Name of Expense # " + expense.getId())
                 .addComponents(ActionRow.of(TextInput.create("name", "Name", TextInputStyle.SHORT)
                         .setPlaceholder(expense.getName())
                         .build()))
@@ -609,9 +957,9 @@ public class ExpenseManager {
     public static Modal generateEditExpenseAmountModal(int index) {
         ExpenseData expense = getExpenseById(index);
 
-        return Modal.create("expense-edit-amount:" + index, "Edit Amount of Expense # " + expense.getId())
+        return Modal.create(ComponentId.of("expense", "edit-amount", index), "Edit Amount of Expense # " + expense.getId())
                 .addComponents(ActionRow.of(TextInput.create("amount", "Amount", TextInputStyle.SHORT)
-                        .setPlaceholder(CurrencyUtils.formatAsUSD(expense.getAmount()))
+                        .setPlaceholder(EventManager.getMoneyFormat(expense.getEventId()).format(expense.getAmountCents()))
                         .build()))
                 .build();
     }
@@ -621,7 +969,7 @@ public class ExpenseManager {
 
         String placeholder = expense.getEventId() == 0 ? "No Event" : EventManager.getEventName(expense.getEventId());
 
-        return Modal.create("expense-edit-event:" + index, "Set Linked Event of Expense # " + expense.getId())
+        return Modal.create(ComponentId.of("expense", "edit-event", index), "Set Linked Event of Expense # " + expense.getId())
                 .addComponents(ActionRow.of(TextInput.create("event", "Event", TextInputStyle.SHORT)
                         .setPlaceholder(placeholder)
                         .build()))
@@ -636,8 +984,8 @@ public class ExpenseManager {
             return null;
         }
 
-        return Modal.create("event-edit-delete:" + index, "Delete Event # " + expense.getId())
-                .addComponents(ActionRow.of(TextInput.create("name", "Enter Event Name to Confirm Deletion.", TextInputStyle.SHORT)
+        return Modal.create(ComponentId.of("expense", "edit-delete", index), "Delete Expense # " + expense.getId())
+                .addComponents(ActionRow.of(TextInput.create("name", "Enter Expense Name to Confirm Deletion.", TextInputStyle.SHORT)
                         .setPlaceholder(expense.getName())
                         .build()))
                 .build();
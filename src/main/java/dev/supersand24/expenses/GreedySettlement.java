@@ -0,0 +1,43 @@
+package dev.supersand24.expenses;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Pays the person who is owed the most from the person who owes the most, until everyone is even.
+ * Every payment settles at least one of the two, so there are never more than n - 1 payments.
+ */
+class GreedySettlement implements SettlementStrategy {
+
+    @Override
+    public List<Transfer> settle(long[] balances) {
+        long[] remaining = balances.clone();
+
+        // Largest amount first, lowest index breaking ties so the result doesn't depend on the queue.
+        Comparator<Integer> byMagnitude = Comparator.<Integer>comparingLong(i -> Math.abs(remaining[i])).reversed()
+                .thenComparingInt(i -> i);
+        PriorityQueue<Integer> debtors = new PriorityQueue<>(byMagnitude);
+        PriorityQueue<Integer> creditors = new PriorityQueue<>(byMagnitude);
+        for (int i = 0; i < remaining.length; i++) {
+            if (remaining[i] < 0) debtors.add(i);
+            else if (remaining[i] > 0) creditors.add(i);
+        }
+
+        List<Transfer> transfers = new ArrayList<>();
+        while (!debtors.isEmpty() && !creditors.isEmpty()) {
+            int debtor = debtors.poll();
+            int creditor = creditors.poll();
+            long cents = Math.min(-remaining[debtor], remaining[creditor]);
+            transfers.add(new Transfer(debtor, creditor, cents));
+
+            remaining[debtor] += cents;
+            remaining[creditor] -= cents;
+            if (remaining[debtor] != 0) debtors.add(debtor);
+            if (remaining[creditor] != 0) creditors.add(creditor);
+        }
+        return transfers;
+    }
+
+}
@@ -0,0 +1,92 @@
+package dev.supersand24.expenses;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the fewest payments that settle a group.
+ * <p>
+ * A group that splits into k smaller groups which each add up to zero can be settled in n - k payments,
+ * and never fewer, so the fewest payments come from the split with the most zero-sum groups.
+ * That split is found by trying every subset of the people who aren't even yet, which takes 2^n steps,
+ * so larger groups are handed to a fallback strategy instead.
+ */
+class OptimalSettlement implements SettlementStrategy {
+
+    private final int maxPeople;
+    private final SettlementStrategy fallback;
+
+    /**
+     * @param maxPeople The most people with a non-zero balance to search every subset for.
+     * @param fallback The strategy used for larger groups.
+     */
+    OptimalSettlement(int maxPeople, SettlementStrategy fallback) {
+        this.maxPeople = maxPeople;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public List<Transfer> settle(long[] balances) {
+        int[] people = new int[balances.length];
+        int n = 0;
+        for (int i = 0; i < balances.length; i++)
+            if (balances[i] != 0) people[n++] = i;
+
+        if (n == 0) return new ArrayList<>();
+        if (n > maxPeople) return fallback.settle(balances);
+
+        // sums[mask] is the total balance of a subset, groups[mask] the most zero-sum groups it splits into.
+        int subsets = 1 << n;
+        long[] sums = new long[subsets];
+        int[] groups = new int[subsets];
+        for (int mask = 1; mask < subsets; mask++) {
+            int lowest = Integer.numberOfTrailingZeros(mask);
+            sums[mask] = sums[mask & (mask - 1)] + balances[people[lowest]];
+
+            int best = 0;
+            for (int rest = mask; rest != 0; rest &= rest - 1)
+                best = Math.max(best, groups[mask & ~Integer.lowestOneBit(rest)]);
+            groups[mask] = best + (sums[mask] == 0 ? 1 : 0);
+        }
+
+        // Walk back from the whole group, taking people out one at a time along a best path.
+        // Every time the people taken out so far add up to zero, they form one of the groups.
+        List<Transfer> transfers = new ArrayList<>();
+        long[] group = new long[balances.length];
+        int mask = subsets - 1;
+        int groupStart = mask;
+        while (mask != 0) {
+            int next = -1;
+            int expected = groups[mask] - (sums[mask] == 0 ? 1 : 0);
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int candidate = mask & ~Integer.lowestOneBit(rest);
+                if (groups[candidate] == expected) {
+                    next = candidate;
+                    break;
+                }
+            }
+            mask = next;
+
+            if (sums[mask] == 0) {
+                settleGroup(balances, people, groupStart & ~mask, group, transfers);
+                groupStart = mask;
+            }
+        }
+        return transfers;
+    }
+
+    /**
+     * Settles one zero-sum group on its own. Greedy needs at most one payment fewer than the group's size,
+     * which is all a zero-sum group that can't be split any further needs.
+     */
+    private static void settleGroup(long[] balances, int[] people, int members, long[] group, List<Transfer> transfers) {
+        for (int rest = members; rest != 0; rest &= rest - 1) {
+            int person = people[Integer.numberOfTrailingZeros(rest)];
+            group[person] = balances[person];
+        }
+        transfers.addAll(GREEDY.settle(group));
+        for (int rest = members; rest != 0; rest &= rest - 1)
+            group[people[Integer.numberOfTrailingZeros(rest)]] = 0;
+    }
+
+}
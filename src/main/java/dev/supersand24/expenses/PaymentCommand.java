@@ -1,19 +1,16 @@
 package dev.supersand24.expenses;
 
+import dev.supersand24.ComponentId;
 import dev.supersand24.CurrencyUtils;
 import dev.supersand24.ICommand;
+import dev.supersand24.events.EventData;
 import dev.supersand24.events.EventManager;
 import net.dv8tion.jda.api.components.actionrow.ActionRow;
 import net.dv8tion.jda.api.components.container.Container;
 import net.dv8tion.jda.api.components.selections.EntitySelectMenu;
 import net.dv8tion.jda.api.components.separator.Separator;
 import net.dv8tion.jda.api.components.textdisplay.TextDisplay;
-import net.dv8tion.jda.api.entities.User;
-import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
@@ -23,6 +20,8 @@ import net.dv8tion.jda.api.utils.messages.MessageCreateData;
 
 import java.util.List;
 
+import static dev.supersand24.InteractionDispatcher.*;
+
 public class PaymentCommand implements ICommand {
 
     @Override
@@ -59,27 +58,29 @@ public class PaymentCommand implements ICommand {
         switch (e.getSubcommandName()) {
             case "add" -> {
                 String optionName = e.getOption("name").getAsString();
-                double optionAmount = e.getOption("amount").getAsDouble();
 
                 //Temp
-                long expenseId = ExpenseManager.createExpense(optionName, optionAmount, e.getUser().getId(), EventManager.getAllEvents().getFirst());
+                EventData event = EventManager.getAllEvents().getFirst();
+                CurrencyUtils.MoneyFormat format = EventManager.getMoneyFormat(event.getId());
+                long optionAmount = format.toMinorUnits(e.getOption("amount").getAsDouble());
+                long expenseId = ExpenseManager.createExpense(optionName, optionAmount, e.getUser().getIdLong(), event);
 
-                e.replyComponents(Container.of(
-                        TextDisplay.of("Created " + CurrencyUtils.formatAsUSD(optionAmount) + " expense."),
+                replyComponents(e, false, Container.of(
+                        TextDisplay.of("Created " + format.format(optionAmount) + " expense."),
                         Separator.createDivider(Separator.Spacing.SMALL),
                         TextDisplay.of("Choose who benefited from " + optionName + "."),
-                        ActionRow.of(EntitySelectMenu.create("expense-beneficiary-select:" + expenseId, EntitySelectMenu.SelectTarget.USER)
+                        ActionRow.of(EntitySelectMenu.create(ComponentId.of("expense", "beneficiary-select", expenseId), EntitySelectMenu.SelectTarget.USER)
                                 .setDefaultValues(EntitySelectMenu.DefaultValue.user(e.getUser().getId()))
                                 .setMaxValues(20)
                                 .build())
-                )).useComponentsV2().queue();
+                ));
             }
             case "remove" -> {
-                e.reply("coming soon.").setEphemeral(true).queue();
+                reply(e, "coming soon.", true);
             }
             case "view" -> {
                 long expenseId = e.getOption("id") != null ? e.getOption("id").getAsLong() : -1;
-                e.deferReply().queue();
+                deferReply(e, false);
 
                 List<ExpenseData> sortedExpenses = ExpenseManager.getExpensesSorted();
                 int initialIndex = -1;
@@ -99,40 +100,7 @@ public class PaymentCommand implements ICommand {
                 MessageCreateData messageData = ExpenseManager.generateExpenseDetailMessage(e.getUser().getId(), initialIndex);
                 e.getHook().sendMessage(messageData).queue();
             }
-            case "list" -> {
-                e.deferReply().queue();
-                User userFilter = e.getOption("user") != null ? e.getOption("user").getAsUser() : null;
-                String targetId = (userFilter == null) ? "all" : userFilter.getId();
-
-                MessageCreateData messageData = ExpenseManager.buildExpenseListPage(0, e.getUser().getId(), targetId);
-                e.getHook().sendMessage(messageData).queue();
-            }
-            case "settleup" -> {
-                e.getHook().sendMessageComponents(ExpenseManager.buildPaymentInfoDetailContainer())
-                        .useComponentsV2()
-                        .queue();
-            }
         }
     }
 
-    @Override
-    public void handleButtonInteraction(ButtonInteractionEvent e) {
-
-    }
-
-    @Override
-    public void handleStringSelectInteraction(StringSelectInteractionEvent e) {
-
-    }
-
-    @Override
-    public void handleEntitySelectInteraction(EntitySelectInteractionEvent e) {
-
-    }
-
-    @Override
-    public void handleModalInteraction(ModalInteractionEvent e) {
-
-    }
-
 }
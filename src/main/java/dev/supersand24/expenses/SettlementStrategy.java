@@ -0,0 +1,36 @@
+package dev.supersand24.expenses;
+
+import java.util.List;
+
+/**
+ * Decides who pays whom to bring a group of balances back to zero.
+ * Strategies work on plain arrays, so they know nothing about users or the data store.
+ */
+public interface SettlementStrategy {
+
+    /** Repeatedly pays the largest creditor from the largest debtor. */
+    SettlementStrategy GREEDY = new GreedySettlement();
+
+    /** Settles everyone who owes exactly what someone else is owed first, then falls back to {@link #GREEDY}. */
+    SettlementStrategy EXACT_MATCH = new ExactMatchSettlement();
+
+    /** The fewest possible payments for groups of up to 16 people, and {@link #EXACT_MATCH} for larger ones. */
+    SettlementStrategy OPTIMAL = new OptimalSettlement(16, EXACT_MATCH);
+
+    /**
+     * A single payment between two people.
+     * @param debtor The index of the person paying.
+     * @param creditor The index of the person being paid.
+     * @param cents How much is paid.
+     */
+    record Transfer(int debtor, int creditor, long cents) {}
+
+    /**
+     * Works out the payments that settle every balance.
+     * The same balances always produce the same payments.
+     * @param balances Every person's balance in cents, positive if they are owed money. Must add up to zero.
+     * @return The payments, which leave every balance at exactly zero.
+     */
+    List<Transfer> settle(long[] balances);
+
+}
@@ -1,6 +1,6 @@
 package dev.supersand24.voice;
 
-import net.dv8tion.jda.api.Permission;
+import dev.supersand24.ComponentId;
 import net.dv8tion.jda.api.components.actionrow.ActionRow;
 import net.dv8tion.jda.api.components.buttons.Button;
 import net.dv8tion.jda.api.components.container.Container;
@@ -8,69 +8,191 @@ import net.dv8tion.jda.api.components.separator.Separator;
 import net.dv8tion.jda.api.components.textdisplay.TextDisplay;
 import net.dv8tion.jda.api.entities.*;
 import net.dv8tion.jda.api.entities.channel.concrete.VoiceChannel;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 public class AriVoiceChannel {
 
+    private static final Logger log = LoggerFactory.getLogger(AriVoiceChannel.class);
+
+    /** Panel updates asked for within this long of each other are sent as a single edit. */
+    private static final long PANEL_EDIT_DELAY_MILLIS = 500;
+
+    private static final ScheduledExecutorService panelEditor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "AriVoiceChannel-panel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final LongAdder panelEditsRequested = new LongAdder();
+    private static final LongAdder panelEditsCoalesced = new LongAdder();
+    private static final LongAdder panelEditsUnchanged = new LongAdder();
+    private static final LongAdder panelEditsSent = new LongAdder();
+
     final VoiceChannel voiceChannel;
 
-    Member creator;
+    /** Everything about the channel that is kept across restarts. */
+    final VoiceChannelData data;
 
-    Message controlPanel;
+    private volatile ChannelVisibility visibility;
 
-    final List<Member> channelAdmins = new ArrayList<>();
+    private final AtomicBoolean panelEditScheduled = new AtomicBoolean();
+    /** The panel as it was last sent, so an edit that wouldn't change anything can be skipped. */
+    private volatile Container sentPanel;
 
-    public AriVoiceChannel(VoiceChannel voiceChannel) {
+    public AriVoiceChannel(VoiceChannel voiceChannel, VoiceChannelData data) {
         this.voiceChannel = voiceChannel;
+        this.data = data;
     }
 
     public VoiceChannel getVoiceChannel() { return voiceChannel; }
 
     public void addChannelAdmin(Member member) {
-        channelAdmins.add(member);
+        data.addAdmin(member.getIdLong());
+        VoiceManager.save(this);
         updateControlPanel();
     }
     public void removeChannelAdmin(Member member) {
-        channelAdmins.remove(member);
+        data.removeAdmin(member.getIdLong());
+        VoiceManager.save(this);
         updateControlPanel();
     }
     public List<Member> getChannelAdmins() {
-        return channelAdmins;
+        List<Member> admins = new ArrayList<>();
+        for (long adminId : data.getAdminIds().toArray()) {
+            Member admin = voiceChannel.getGuild().getMemberById(adminId);
+            if (admin != null) admins.add(admin);
+        }
+        return admins;
     }
     public List<Member> getMembers() {
         return getVoiceChannel().getMembers();
     }
 
     public void sendControlPanel() {
-        voiceChannel.sendMessageComponents(createControlPanel())
+        Container panel = createControlPanel();
+        sentPanel = panel;
+        voiceChannel.sendMessageComponents(panel)
                 .setSuppressedNotifications(true)
                 .mentionUsers("0")
                 .useComponentsV2().queue(this::setControlPanel);
     }
 
-    private void setControlPanel(Message message) { this.controlPanel = message; }
+    private void setControlPanel(Message message) {
+        data.setControlPanelId(message.getIdLong());
+        VoiceManager.save(this);
+    }
+
+    /**
+     * Brings the control panel up to date after a restart, by editing the one that was already sent.
+     * A new one is only sent if there is none.
+     */
+    void restoreControlPanel() {
+        if (data.getControlPanelId() == 0) sendControlPanel();
+        else updateControlPanel();
+    }
 
+    /**
+     * Brings the control panel up to date shortly. Updates asked for before then are sent along with this one,
+     * and the panel is rendered when it is sent, so it always shows the latest state.
+     */
     public void updateControlPanel() {
-        if (controlPanel == null) return;
-        controlPanel.editMessageComponents(createControlPanel()).useComponentsV2().queue();
+        if (data.getControlPanelId() == 0) return;
+        panelEditsRequested.increment();
+        if (!panelEditScheduled.compareAndSet(false, true)) {
+            panelEditsCoalesced.increment();
+            return;
+        }
+        panelEditor.schedule(this::editControlPanel, PANEL_EDIT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void editControlPanel() {
+        // Cleared before rendering, so a change made while rendering schedules another edit.
+        panelEditScheduled.set(false);
+
+        Container panel = createControlPanel();
+        if (panel.equals(sentPanel)) {
+            panelEditsUnchanged.increment();
+            return;
+        }
+
+        sentPanel = panel;
+        panelEditsSent.increment();
+        voiceChannel.editMessageComponentsById(data.getControlPanelId(), panel).useComponentsV2().queue(null, failure -> {
+            // Sends the panel again next time, whatever it looks like then.
+            sentPanel = null;
+            if (failure instanceof ErrorResponseException error && error.getErrorResponse() == ErrorResponse.UNKNOWN_MESSAGE) {
+                log.info("The control panel of {} is gone, sending a new one.", voiceChannel.getName());
+                sendControlPanel();
+            } else {
+                log.warn("Could not update the control panel of {}: {}", voiceChannel.getName(), failure.getMessage());
+            }
+        });
+    }
+
+    /**
+     * How many control panel updates were asked for since startup, and what became of them.
+     * @param coalesced Sent along with an update that was already waiting.
+     * @param unchanged Skipped because the panel would have looked the same.
+     */
+    public record PanelEditStats(long requested, long coalesced, long unchanged, long sent) {
+
+        public long suppressed() {
+            return coalesced + unchanged;
+        }
+
+    }
+
+    public static PanelEditStats getPanelEditStats() {
+        return new PanelEditStats(panelEditsRequested.sum(), panelEditsCoalesced.sum(), panelEditsUnchanged.sum(), panelEditsSent.sum());
+    }
+
+    /**
+     * Gets who the channel is visible to, working it out again if its permissions changed since.
+     */
+    ChannelVisibility getVisibility() {
+        ChannelVisibility current = visibility;
+        if (current == null) {
+            current = ChannelVisibility.of(voiceChannel);
+            visibility = current;
+            if (data.isHidden() != current.hidden()) {
+                data.setHidden(current.hidden());
+                VoiceManager.save(this);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Forgets who the channel is visible to, for when its overrides or something they name changed.
+     */
+    void invalidateVisibility() {
+        visibility = null;
     }
 
     private Container createControlPanel() {
-        PermissionOverride override = voiceChannel.getPermissionOverride(voiceChannel.getGuild().getPublicRole());
-        boolean isCurrentlyHidden = (override != null && override.getDenied().contains(Permission.VIEW_CHANNEL));
-        Button hideChannelButton = Button.primary("vc:hideChannel:" + voiceChannel.getId(), "Hide")
+        ChannelVisibility visibility = getVisibility();
+        boolean isCurrentlyHidden = visibility.hidden();
+        Button hideChannelButton = Button.primary(ComponentId.of("vc", "hideChannel", voiceChannel.getId()), "Hide")
                 .withDisabled(isCurrentlyHidden);
-        Button showChannelButton = Button.danger("vc:showChannel:" + voiceChannel.getId(), "Show")
+        Button showChannelButton = Button.danger(ComponentId.of("vc", "showChannel", voiceChannel.getId()), "Show")
                 .withDisabled(!isCurrentlyHidden);
-        Button sendVisibilitySetting = Button.secondary("vc:sendVisibility:" + voiceChannel.getId(), "Settings")
+        Button sendVisibilitySetting = Button.secondary(ComponentId.of("vc", "sendVisibility", voiceChannel.getId()), "Settings")
                 .withDisabled(!isCurrentlyHidden);
 
         String visibleToText = isCurrentlyHidden
-                ? getFormattedVisibilityDetails()
+                ? getFormattedVisibilityDetails(visibility)
                 : "-# Channel is currently visible to everyone.";
 
         return Container.of(
@@ -82,51 +204,20 @@ public class AriVoiceChannel {
         );
     }
 
-    private String getFormattedVisibilityDetails() {
-        List<Role> topVisibleRoles = voiceChannel.getPermissionOverrides().stream()
-                .filter(PermissionOverride::isRoleOverride)
-                .filter(po -> po.getAllowed().contains(Permission.VIEW_CHANNEL))
-                .map(PermissionOverride::getRole)
-                .filter(role -> role != null && !role.isPublicRole())
-                .filter(role -> !role.getTags().isBot())
-                .limit(3)
-                .toList();
-
-        List<Member> allVisibleMembers = voiceChannel.getGuild().getMembers().stream()
-                .filter(member -> !member.getUser().isBot())
-                .filter(member -> member.hasPermission(voiceChannel, Permission.VIEW_CHANNEL))
-                .toList();
-
-        List<Member> membersVisibleForOtherReasons = allVisibleMembers.stream()
-                .filter(member -> Collections.disjoint(member.getRoles(), topVisibleRoles))
-                .toList();
-
+    private static String getFormattedVisibilityDetails(ChannelVisibility visibility) {
         StringBuilder details = new StringBuilder();
 
-        if (!topVisibleRoles.isEmpty()) {
+        if (!visibility.roleIds().isEmpty()) {
             details.append("**Visible to Roles:**\n");
-            String roleList = topVisibleRoles.stream()
-                    .map(Role::getAsMention)
-                    .collect(Collectors.joining("\n- ", "- ", ""));
-            details.append(roleList);
+            appendMentions(details, visibility.roleIds(), "<@&");
         }
 
-        if (!membersVisibleForOtherReasons.isEmpty()) {
+        if (!visibility.memberIds().isEmpty()) {
             if (!details.isEmpty()) {
                 details.append("\n\n");
             }
             details.append("**Visible to Members:**\n");
-
-            final int displayLimit = 10;
-            String memberList = membersVisibleForOtherReasons.stream()
-                    .limit(displayLimit)
-                    .map(Member::getAsMention)
-                    .collect(Collectors.joining("\n- ", "- ", ""));
-            details.append(memberList);
-
-            if (membersVisibleForOtherReasons.size() > displayLimit) {
-                details.append("\n... and ").append(membersVisibleForOtherReasons.size() - displayLimit).append(" more.");
-            }
+            appendMentions(details, visibility.memberIds(), "<@");
         }
 
         if (details.isEmpty()) {
@@ -136,6 +227,17 @@ public class AriVoiceChannel {
         return details.toString();
     }
 
+    private static void appendMentions(StringBuilder details, List<Long> ids, String mentionPrefix) {
+        final int displayLimit = 10;
+        for (int i = 0; i < Math.min(ids.size(), displayLimit); i++) {
+            if (i > 0) details.append("\n");
+            details.append("- ").append(mentionPrefix).append(ids.get(i)).append('>');
+        }
+        if (ids.size() > displayLimit) {
+            details.append("\n... and ").append(ids.size() - displayLimit).append(" more.");
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -143,8 +245,9 @@ public class AriVoiceChannel {
         sb.append(voiceChannel.getName()).append(" | ").append(voiceChannel.getIdLong()).append("\n");
         sb.append("--------------------------------------\n");
         sb.append("Creator : ");
+        Member creator = voiceChannel.getGuild().getMemberById(data.getCreatorId());
         sb.append(creator == null ? "None" : creator.getEffectiveName());
-        sb.append(" | Admins:").append(channelAdmins.stream().map(Member::getEffectiveName).toList()).append("\n");
+        sb.append(" | Admins:").append(getChannelAdmins().stream().map(Member::getEffectiveName).toList()).append("\n");
         sb.append("Voice Channel Members");
         for (Member member : voiceChannel.getMembers()) {
             sb.append("\n   ").append(member.getEffectiveName()).append(" -> ").append(member.getActivities().stream().map(Activity::getName).collect(Collectors.toList()));
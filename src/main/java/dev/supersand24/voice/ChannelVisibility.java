@@ -0,0 +1,57 @@
+package dev.supersand24.voice;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.PermissionOverride;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.channel.concrete.VoiceChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Who a voice channel is visible to, worked out from its permission overrides alone.
+ * <p>
+ * Working it out only looks at the channel's overrides, never at every member of the guild. A hidden
+ * channel is visible to the roles and members it has an override for. Administrators see it too, but
+ * they see every channel, so they aren't listed.
+ * <p>
+ * Every {@link AriVoiceChannel} keeps one until the channel's overrides change, or a role or member
+ * it names does. See {@link VoiceManager#onPermissionsChanged(long)}.
+ */
+record ChannelVisibility(boolean hidden, List<Long> roleIds, List<Long> memberIds) {
+
+    static ChannelVisibility of(VoiceChannel voiceChannel) {
+        long publicRoleId = voiceChannel.getGuild().getPublicRole().getIdLong();
+        boolean hidden = false;
+        List<Long> roleIds = new ArrayList<>();
+        List<Long> memberIds = new ArrayList<>();
+
+        for (PermissionOverride override : voiceChannel.getPermissionOverrides()) {
+            if (override.getIdLong() == publicRoleId) {
+                hidden = override.getDenied().contains(Permission.VIEW_CHANNEL);
+                continue;
+            }
+            if (!override.getAllowed().contains(Permission.VIEW_CHANNEL)) continue;
+
+            if (override.isRoleOverride()) {
+                Role role = override.getRole();
+                if (role != null && !role.getTags().isBot()) roleIds.add(role.getIdLong());
+            } else {
+                // Members that left the guild keep their override, but can't see anything.
+                Member member = override.getMember();
+                if (member != null && !member.getUser().isBot()) memberIds.add(member.getIdLong());
+            }
+        }
+
+        return new ChannelVisibility(hidden, List.copyOf(roleIds), List.copyOf(memberIds));
+    }
+
+    /**
+     * @return Whether a change to the role or member could change who the channel is visible to.
+     */
+    boolean mentions(long id) {
+        return roleIds.contains(id) || memberIds.contains(id);
+    }
+
+}
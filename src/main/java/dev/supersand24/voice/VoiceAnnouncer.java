@@ -0,0 +1,120 @@
+package dev.supersand24.voice;
+
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.channel.concrete.VoiceChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Announces who joined and left a voice channel, a few seconds at a time.
+ * <p>
+ * When lots of people hop in at once, like at the start of an event, a message per person floods the
+ * channel and runs into Discord's rate limits. Instead, joins and leaves are collected for a short while
+ * and announced in one message, in the order they happened, so someone who joined and left again shows up as just that.
+ */
+public class VoiceAnnouncer {
+
+    private static final Logger log = LoggerFactory.getLogger(VoiceAnnouncer.class);
+
+    /** How long joins and leaves are collected before they are announced. */
+    private static final long WINDOW_MILLIS = 3_000;
+    /** How many people a single line names before it just counts the rest. */
+    private static final int MAX_MENTIONS_PER_LINE = 20;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "VoiceAnnouncer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record Change(long memberId, boolean joined) {}
+
+    private static final class Batch {
+        final VoiceChannel voiceChannel;
+        final List<Change> changes = new ArrayList<>();
+
+        Batch(VoiceChannel voiceChannel) {
+            this.voiceChannel = voiceChannel;
+        }
+    }
+
+    private static final Map<Long, Batch> batches = new ConcurrentHashMap<>();
+
+    public static void joined(VoiceChannel voiceChannel, Member member) {
+        add(voiceChannel, new Change(member.getIdLong(), true));
+    }
+
+    public static void left(VoiceChannel voiceChannel, Member member) {
+        add(voiceChannel, new Change(member.getIdLong(), false));
+    }
+
+    /**
+     * Drops the changes waiting to be announced in a channel, for when it is about to be deleted.
+     */
+    public static void discard(long channelId) {
+        batches.remove(channelId);
+    }
+
+    private static void add(VoiceChannel voiceChannel, Change change) {
+        long channelId = voiceChannel.getIdLong();
+        batches.compute(channelId, (id, batch) -> {
+            if (batch == null) {
+                batch = new Batch(voiceChannel);
+                scheduler.schedule(() -> announce(channelId), WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            batch.changes.add(change);
+            return batch;
+        });
+    }
+
+    private static void announce(long channelId) {
+        Batch batch = batches.remove(channelId);
+        if (batch == null || batch.changes.isEmpty()) return;
+
+        VoiceChannel voiceChannel = batch.voiceChannel.getJDA().getVoiceChannelById(channelId);
+        if (voiceChannel == null || !VoiceManager.canSendMessage(voiceChannel)) return;
+
+        voiceChannel.sendMessage(format(batch.changes))
+                .setSuppressedNotifications(true)
+                .setTTS(false)
+                .mentionUsers("0")
+                .queue(null, failure -> log.warn("Could not announce voice changes in {}: {}", voiceChannel.getName(), failure.getMessage()));
+    }
+
+    /**
+     * Writes a line for every run of joins or leaves, like "@A and @B joined the voice call."
+     */
+    private static String format(List<Change> changes) {
+        StringBuilder message = new StringBuilder();
+        int start = 0;
+        while (start < changes.size()) {
+            boolean joined = changes.get(start).joined();
+            int end = start;
+            while (end < changes.size() && changes.get(end).joined() == joined) end++;
+
+            if (!message.isEmpty()) message.append('\n');
+            appendMentions(message, changes.subList(start, end));
+            message.append(joined ? " joined the voice call." : " left the voice call.");
+            start = end;
+        }
+        return message.toString();
+    }
+
+    private static void appendMentions(StringBuilder message, List<Change> run) {
+        int named = run.size() > MAX_MENTIONS_PER_LINE ? MAX_MENTIONS_PER_LINE - 1 : run.size();
+        for (int i = 0; i < named; i++) {
+            if (i > 0) message.append(i == run.size() - 1 ? " and " : ", ");
+            message.append("<@").append(run.get(i).memberId()).append('>');
+        }
+        if (named < run.size()) message.append(" and ").append(run.size() - named).append(" others");
+    }
+
+}
@@ -0,0 +1,40 @@
+package dev.supersand24.voice;
+
+import dev.supersand24.IData;
+import dev.supersand24.SnowflakeSet;
+
+/**
+ * What the bot remembers about a voice channel it created, kept under the channel's ID
+ * so the channel can be picked up again after a restart.
+ */
+public class VoiceChannelData implements IData {
+
+    private transient long channelId;
+    private long creatorId;
+    private SnowflakeSet adminIds = SnowflakeSet.EMPTY;
+    /** The message with the channel's control panel, or 0 if it hasn't been sent yet. */
+    private long controlPanelId;
+    /** Whether the channel was hidden from everyone when it last changed. Its overrides are what count. */
+    private boolean hidden;
+
+    public VoiceChannelData(long creatorId) {
+        this.creatorId = creatorId;
+    }
+
+    public long getId() { return channelId; }
+    @Override public void setId(long id) { channelId = id; }
+    public long getCreatorId() { return creatorId; }
+    public SnowflakeSet getAdminIds() { return adminIds; }
+    public synchronized void addAdmin(long memberId) { adminIds = adminIds.with(memberId); }
+    public synchronized void removeAdmin(long memberId) { adminIds = adminIds.without(memberId); }
+    public long getControlPanelId() { return controlPanelId; }
+    public synchronized void setControlPanelId(long controlPanelId) { this.controlPanelId = controlPanelId; }
+    public boolean isHidden() { return hidden; }
+    public synchronized void setHidden(boolean hidden) { this.hidden = hidden; }
+
+    @Override
+    public void afterLoad() {
+        if (adminIds == null) adminIds = SnowflakeSet.EMPTY;
+    }
+
+}
@@ -1,6 +1,8 @@
 package dev.supersand24.voice;
 
 import dev.supersand24.ArisannaBot;
+import dev.supersand24.ComponentId;
+import dev.supersand24.ComponentRouter;
 import dev.supersand24.ICommand;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.components.actionrow.ActionRow;
@@ -13,11 +15,10 @@ import net.dv8tion.jda.api.entities.IPermissionHolder;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.PermissionOverride;
 import net.dv8tion.jda.api.entities.Role;
-import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.EntitySelectInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.managers.channel.concrete.VoiceChannelManager;
 import org.slf4j.Logger;
@@ -26,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import java.util.EnumSet;
 import java.util.List;
 
+import static dev.supersand24.InteractionDispatcher.*;
 import static dev.supersand24.voice.VoiceManager.*;
 
 public class VoiceCommand implements ICommand {
@@ -44,201 +46,153 @@ public class VoiceCommand implements ICommand {
     }
 
     @Override
-    public void handleButtonInteraction(ButtonInteractionEvent e) {
-        String[] parts = e.getComponentId().split(":");
-
-        String prefix = parts[1];
-
-        switch (prefix) {
-            case "hideChannel" -> {
-                Long channelId = Long.parseLong(parts[2]);
-
-                AriVoiceChannel ariVC = channels.get(channelId);
-                if (ariVC == null) {
-                    log.error("I can't find {}.", channelId);
-                    return;
-                }
-
-                hideChannel(ariVC);
-                e.replyComponents(Container.of(
-                        TextDisplay.of("### Visibility Setting"),
-                        Separator.createDivider(Separator.Spacing.SMALL),
-                        TextDisplay.of("Select who you want the channel to be visible to."),
-                        ActionRow.of(
-                                EntitySelectMenu.create("vc:hideChannelUserSelected:" + channelId, EntitySelectMenu.SelectTarget.USER)
-                                        //.setDefaultValues(EntitySelectMenu.DefaultValue.user(e.getMember().getId()))
-                                        .setRequiredRange(0, 10)
-                                        .setPlaceholder("Select any Users here.")
-                                        .build()
-                        ),
-                        ActionRow.of(
-                                EntitySelectMenu.create("vc:hideChannelRoleSelected:" + channelId, EntitySelectMenu.SelectTarget.ROLE)
-                                        .setPlaceholder("Select any Roles here.")
-                                        .setRequiredRange(0, 10)
-                                        .build()
-                        ),
-                        ActionRow.of(
-                                Button.danger("vc:resetHideChannelPermissions:" + channelId, "Reset Visibility")
-                        )
-                )).useComponentsV2().setEphemeral(true).queue(message -> ariVC.updateControlPanel());
+    public void registerComponents(ComponentRouter router) {
+        // Everyone in a channel shares its control panel, so its changes are applied one at a time per channel.
+        router.button("vc", "hideChannel", this::hideChannel).orderedBy(0);
+        router.button("vc", "showChannel", this::showChannel).orderedBy(0);
+        router.button("vc", "sendVisibility", this::sendVisibility).orderedBy(0);
+        router.button("vc", "resetHideChannelPermissions", this::resetVisibility).orderedBy(0);
+        router.entitySelect("vc", "hideChannelUserSelected", this::showToUsers).orderedBy(0);
+        router.entitySelect("vc", "hideChannelRoleSelected", this::showToRoles).orderedBy(0);
+    }
 
-            }
-            case "showChannel" -> {
-                Long channelId = Long.parseLong(parts[2]);
+    private AriVoiceChannel findChannel(IReplyCallback e, ComponentId id) {
+        long channelId = id.getLong(0);
+        AriVoiceChannel ariVC = channels.get(channelId);
+        if (ariVC == null) {
+            log.error("I can't find {}.", channelId);
+            reply(e, "I can't find that voice channel anymore.", true);
+        }
+        return ariVC;
+    }
 
-                AriVoiceChannel ariVC = channels.get(channelId);
-                if (ariVC == null) {
-                    log.error("I can't find {}.", channelId);
-                    return;
-                }
+    private Container buildVisibilityMenu(long channelId) {
+        return Container.of(
+                TextDisplay.of("### Visibility Setting"),
+                Separator.createDivider(Separator.Spacing.SMALL),
+                TextDisplay.of("Select who you want the channel to be visible to."),
+                ActionRow.of(
+                        EntitySelectMenu.create(ComponentId.of("vc", "hideChannelUserSelected", channelId), EntitySelectMenu.SelectTarget.USER)
+                                //.setDefaultValues(EntitySelectMenu.DefaultValue.user(e.getMember().getId()))
+                                .setRequiredRange(0, 10)
+                                .setPlaceholder("Select any Users here.")
+                                .build()
+                ),
+                ActionRow.of(
+                        EntitySelectMenu.create(ComponentId.of("vc", "hideChannelRoleSelected", channelId), EntitySelectMenu.SelectTarget.ROLE)
+                                .setPlaceholder("Select any Roles here.")
+                                .setRequiredRange(0, 10)
+                                .build()
+                ),
+                ActionRow.of(
+                        Button.danger(ComponentId.of("vc", "resetHideChannelPermissions", channelId), "Reset Visibility")
+                )
+        );
+    }
 
-                showChannel(ariVC);
-                e.reply("Channel revealed " + ArisannaBot.emojiHeartArisanna.getAsMention()).setEphemeral(true).queue(message -> ariVC.updateControlPanel());
-            }
-            case "sendVisibility" -> {
-                Long channelId = Long.parseLong(parts[2]);
-
-                AriVoiceChannel ariVC = channels.get(channelId);
-                if (ariVC == null) {
-                    log.error("I can't find {}.", channelId);
-                    return;
-                }
-
-                e.replyComponents(Container.of(
-                        TextDisplay.of("### Visibility Setting"),
-                        Separator.createDivider(Separator.Spacing.SMALL),
-                        TextDisplay.of("Select who you want the channel to be visible to."),
-                        ActionRow.of(
-                                EntitySelectMenu.create("vc:hideChannelUserSelected:" + channelId, EntitySelectMenu.SelectTarget.USER)
-                                        //.setDefaultValues(EntitySelectMenu.DefaultValue.user(e.getMember().getId()))
-                                        .setRequiredRange(0, 10)
-                                        .setPlaceholder("Select any Users here.")
-                                        .build()
-                        ),
-                        ActionRow.of(
-                                EntitySelectMenu.create("vc:hideChannelRoleSelected:" + channelId, EntitySelectMenu.SelectTarget.ROLE)
-                                        .setPlaceholder("Select any Roles here.")
-                                        .setRequiredRange(0, 10)
-                                        .build()
-                        ),
-                        ActionRow.of(
-                                Button.danger("vc:resetHideChannelPermissions:" + channelId, "Reset Visibility")
-                        )
-                )).useComponentsV2().setEphemeral(true).queue();
-            }
-            case "resetHideChannelPermissions" -> {
-                Long channelId = Long.parseLong(parts[2]);
-
-                AriVoiceChannel ariVC = channels.get(channelId);
-                if (ariVC == null) {
-                    log.error("I can't find {}.", channelId);
-                    return;
-                }
-
-                e.deferReply().setEphemeral(true).queue();
-
-                VoiceChannelManager manager = ariVC.getVoiceChannel().getManager();
-                List<Member> membersInVC = ariVC.getVoiceChannel().getMembers();
-
-                long selfId = e.getJDA().getSelfUser().getIdLong();
-
-                if (canManagePermission(ariVC.getVoiceChannel())) {
-                    for (PermissionOverride override : ariVC.getVoiceChannel().getPermissionOverrides()) {
-                        IPermissionHolder holder = override.getPermissionHolder();
-                        if (holder == null) continue;
-
-                        if (holder instanceof Member && membersInVC.contains(holder)) continue;
-                        if (holder instanceof Member && holder.getIdLong() == selfId) continue;
-                        if (holder instanceof Role && ((Role) holder).getTags().isBot()) continue;
-
-                        manager = manager.putPermissionOverride(
-                                holder,
-                                EnumSet.noneOf(Permission.class),
-                                EnumSet.of(Permission.VIEW_CHANNEL)
-                        );
-                    }
-
-                    manager.queue(success -> {
-                        ariVC.updateControlPanel();
-                        e.getHook().sendMessage("Reset Visibility").queue();
-                    });
-                } else {
-                    e.getHook().sendMessage("I couldn't reset the Visibility").queue();
-                }
+    private void hideChannel(ButtonInteractionEvent e, ComponentId id) {
+        AriVoiceChannel ariVC = findChannel(e, id);
+        if (ariVC == null) return;
 
-            }
-            default -> {
-                log.warn("Unhandled button prefix: {}", prefix);
-                e.reply("Something went wrong!").setEphemeral(true).queue();
-            }
-        }
+        VoiceManager.hideChannel(ariVC);
+        replyComponents(e, true, buildVisibilityMenu(id.getLong(0)));
+        ariVC.updateControlPanel();
     }
 
-    @Override
-    public void handleStringSelectInteraction(StringSelectInteractionEvent e) {
+    private void showChannel(ButtonInteractionEvent e, ComponentId id) {
+        AriVoiceChannel ariVC = findChannel(e, id);
+        if (ariVC == null) return;
 
+        VoiceManager.showChannel(ariVC);
+        reply(e, "Channel revealed " + ArisannaBot.emojiHeartArisanna.getAsMention(), true);
+        ariVC.updateControlPanel();
     }
 
-    @Override
-    public void handleEntitySelectInteraction(EntitySelectInteractionEvent e) {
+    private void sendVisibility(ButtonInteractionEvent e, ComponentId id) {
+        AriVoiceChannel ariVC = findChannel(e, id);
+        if (ariVC == null) return;
 
-        String[] parts = e.getComponentId().split(":");
-        if (!parts[0].equals("vc")) return;
+        replyComponents(e, true, buildVisibilityMenu(id.getLong(0)));
+    }
+
+    private void resetVisibility(ButtonInteractionEvent e, ComponentId id) {
+        AriVoiceChannel ariVC = findChannel(e, id);
+        if (ariVC == null) return;
 
-        String prefix = parts[1];
+        deferReply(e, true);
 
-        if (prefix.equals("hideChannelUserSelected")) {
-            Long channelId = Long.parseLong(parts[2]);
+        VoiceChannelManager manager = ariVC.getVoiceChannel().getManager();
+        List<Member> membersInVC = ariVC.getVoiceChannel().getMembers();
 
-            AriVoiceChannel ariVC = channels.get(channelId);
-            if (ariVC == null) { log.error("I can't find {}.", channelId); return; }
+        long selfId = e.getJDA().getSelfUser().getIdLong();
 
-            e.deferReply().setEphemeral(true).queue();
+        if (canManagePermission(ariVC.getVoiceChannel())) {
+            for (PermissionOverride override : ariVC.getVoiceChannel().getPermissionOverrides()) {
+                IPermissionHolder holder = override.getPermissionHolder();
+                if (holder == null) continue;
 
-            VoiceChannelManager manager = ariVC.getVoiceChannel().getManager();
+                if (holder instanceof Member && membersInVC.contains(holder)) continue;
+                if (holder instanceof Member && holder.getIdLong() == selfId) continue;
+                if (holder instanceof Role && ((Role) holder).getTags().isBot()) continue;
 
-            for (Member member : e.getMentions().getMembers()) {
-                manager = manager.putMemberPermissionOverride(
-                        member.getIdLong(),
-                        EnumSet.of(Permission.VIEW_CHANNEL),
-                        EnumSet.noneOf(Permission.class)
+                manager = manager.putPermissionOverride(
+                        holder,
+                        EnumSet.noneOf(Permission.class),
+                        EnumSet.of(Permission.VIEW_CHANNEL)
                 );
             }
 
-            manager.queue( success -> {
-                e.getHook().sendMessage("Added " + e.getMentions().getMembers().size() + " users to the list.").queue();
+            manager.queue(success -> {
                 ariVC.updateControlPanel();
+                e.getHook().sendMessage("Reset Visibility").queue();
             });
-        } else if (prefix.equals("hideChannelRoleSelected")) {
-            Long channelId = Long.parseLong(parts[2]);
-
-            AriVoiceChannel ariVC = channels.get(channelId);
-            if (ariVC == null) { log.error("I can't find {}.", channelId); return; }
+        } else {
+            e.getHook().sendMessage("I couldn't reset the Visibility").queue();
+        }
+    }
 
-            e.deferReply().setEphemeral(true).queue();
+    private void showToUsers(EntitySelectInteractionEvent e, ComponentId id) {
+        AriVoiceChannel ariVC = findChannel(e, id);
+        if (ariVC == null) return;
 
-            VoiceChannelManager manager = ariVC.getVoiceChannel().getManager();
+        deferReply(e, true);
 
-            for (Role role : e.getMentions().getRoles()) {
-                manager = manager.putRolePermissionOverride(
-                        role.getIdLong(),
-                        EnumSet.of(Permission.VIEW_CHANNEL),
-                        EnumSet.noneOf(Permission.class)
-                );
-            }
+        VoiceChannelManager manager = ariVC.getVoiceChannel().getManager();
 
-            manager.queue( success -> {
-                e.getHook().sendMessage("Added " + e.getMentions().getRoles().size() + " roles to the list.").queue();
-                ariVC.updateControlPanel();
-            });
-        } else {
-            e.reply("Something went wrong!").setEphemeral(true).queue();
+        for (Member member : e.getMentions().getMembers()) {
+            manager = manager.putMemberPermissionOverride(
+                    member.getIdLong(),
+                    EnumSet.of(Permission.VIEW_CHANNEL),
+                    EnumSet.noneOf(Permission.class)
+            );
         }
 
+        manager.queue( success -> {
+            e.getHook().sendMessage("Added " + e.getMentions().getMembers().size() + " users to the list.").queue();
+            ariVC.updateControlPanel();
+        });
     }
 
-    @Override
-    public void handleModalInteraction(ModalInteractionEvent e) {
+    private void showToRoles(EntitySelectInteractionEvent e, ComponentId id) {
+        AriVoiceChannel ariVC = findChannel(e, id);
+        if (ariVC == null) return;
+
+        deferReply(e, true);
+
+        VoiceChannelManager manager = ariVC.getVoiceChannel().getManager();
 
+        for (Role role : e.getMentions().getRoles()) {
+            manager = manager.putRolePermissionOverride(
+                    role.getIdLong(),
+                    EnumSet.of(Permission.VIEW_CHANNEL),
+                    EnumSet.noneOf(Permission.class)
+            );
+        }
+
+        manager.queue( success -> {
+            e.getHook().sendMessage("Added " + e.getMentions().getRoles().size() + " roles to the list.").queue();
+            ariVC.updateControlPanel();
+        });
     }
+
 }
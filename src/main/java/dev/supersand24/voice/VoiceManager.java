@@ -1,22 +1,30 @@
 package dev.supersand24.voice;
 
+import dev.supersand24.DataPartition;
+import dev.supersand24.DataStore;
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.PermissionOverride;
 import net.dv8tion.jda.api.entities.channel.concrete.VoiceChannel;
 import net.dv8tion.jda.api.entities.channel.unions.AudioChannelUnion;
 import net.dv8tion.jda.api.requests.restaction.ChannelAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.List;
 
 public class VoiceManager {
 
     private static final Logger log = LoggerFactory.getLogger(VoiceManager.class);
 
+    public static final String VOICE_CHANNELS_DATA_STORE_NAME = "voiceChannels";
+
     public static final Hashtable<Long, AriVoiceChannel> channels = new Hashtable<>();
 
     public static final HashMap<Long, Long> AUTO_VOICE_NEW_CHANNEL_ID = new HashMap<>();
@@ -41,9 +49,8 @@ public class VoiceManager {
             guild.moveVoiceMember(member, voiceChannel).queue();
             log.info("{} created a New Voice Channel in {}.", member.getUser().getName(), guild.getName());
 
-            AriVoiceChannel ariVC = new AriVoiceChannel(voiceChannel);
+            AriVoiceChannel ariVC = register(voiceChannel, new VoiceChannelData(member.getIdLong()));
             ariVC.addChannelAdmin(member);
-            channels.put(voiceChannel.getIdLong(), ariVC);
 
             voiceChannel.getManager().putMemberPermissionOverride(
                     member.getIdLong(),
@@ -78,10 +85,119 @@ public class VoiceManager {
     }
 
     public static void deleteChannel(VoiceChannel voiceChannel) {
-        if (canManageChannel(voiceChannel)) voiceChannel.delete().queue();
+        if (canManageChannel(voiceChannel)) {
+            forget(voiceChannel.getIdLong());
+            voiceChannel.delete().queue();
+        }
         else log.error("I can't manage " + voiceChannel.getName() + " in " + voiceChannel.getGuild().getName() + ".");
     }
 
+    private static DataPartition<VoiceChannelData> getVoiceChannelsPartition() {
+        return DataStore.get(VOICE_CHANNELS_DATA_STORE_NAME);
+    }
+
+    /**
+     * Starts keeping track of a channel the bot manages, so it is picked up again after a restart.
+     */
+    private static AriVoiceChannel register(VoiceChannel voiceChannel, VoiceChannelData data) {
+        long channelId = voiceChannel.getIdLong();
+        data.setId(channelId);
+        getVoiceChannelsPartition().getData().put(channelId, data);
+        DataStore.markDirty(VOICE_CHANNELS_DATA_STORE_NAME, channelId);
+
+        AriVoiceChannel ariVC = new AriVoiceChannel(voiceChannel, data);
+        channels.put(channelId, ariVC);
+        return ariVC;
+    }
+
+    private static void forget(long channelId) {
+        channels.remove(channelId);
+        if (getVoiceChannelsPartition().getData().remove(channelId) != null)
+            DataStore.markDirty(VOICE_CHANNELS_DATA_STORE_NAME, channelId);
+    }
+
+    /**
+     * Saves the change to a channel's data.
+     */
+    static void save(AriVoiceChannel ariVC) {
+        DataStore.markDirty(VOICE_CHANNELS_DATA_STORE_NAME, ariVC.getVoiceChannel().getIdLong());
+    }
+
+    /**
+     * Picks the channels the bot manages back up after a restart, from what was saved about them.
+     * Channels that were deleted while the bot was offline are forgotten, and channels everyone left are deleted.
+     * The rest have their control panel edited, only if it changed, instead of sending a new one.
+     */
+    public static void restoreChannels(JDA jda) {
+        List<Long> gone = new ArrayList<>();
+        List<AriVoiceChannel> restored = new ArrayList<>();
+        getVoiceChannelsPartition().getData().forEachEntry((channelId, data) -> {
+            VoiceChannel voiceChannel = jda.getVoiceChannelById(channelId);
+            if (voiceChannel == null) gone.add(channelId);
+            else restored.add(new AriVoiceChannel(voiceChannel, data));
+        });
+
+        for (long channelId : gone)
+            forget(channelId);
+
+        for (AriVoiceChannel ariVC : restored) {
+            if (ariVC.getVoiceChannel().getMembers().isEmpty()) {
+                deleteChannel(ariVC);
+                continue;
+            }
+            channels.put(ariVC.getVoiceChannel().getIdLong(), ariVC);
+            ariVC.restoreControlPanel();
+        }
+        log.info("Restored {} voice channels, forgot {} that are gone.", channels.size(), gone.size());
+    }
+
+    /**
+     * Takes over a voice channel that isn't in the registry yet, like one created before channels were saved.
+     * Its admins are the members in it that can manage it.
+     */
+    public static void adoptChannel(VoiceChannel voiceChannel) {
+        AriVoiceChannel ariVC = register(voiceChannel, new VoiceChannelData(0));
+        for (Member member : voiceChannel.getMembers()) {
+            PermissionOverride perms = voiceChannel.getPermissionOverride(member);
+            if (perms == null || !perms.getAllowed().contains(Permission.MANAGE_CHANNEL)) continue;
+            ariVC.addChannelAdmin(member);
+            log.info("{} was made a Channel Admin for {} in {}.", member.getUser().getName(), voiceChannel.getName(), voiceChannel.getGuild().getName());
+        }
+        ariVC.sendControlPanel();
+    }
+
+    /**
+     * Refreshes the control panel of a channel whose permission overrides changed.
+     */
+    public static void onPermissionsChanged(long channelId) {
+        AriVoiceChannel ariVC = channels.get(channelId);
+        if (ariVC == null) return;
+        ariVC.invalidateVisibility();
+        ariVC.updateControlPanel();
+    }
+
+    /**
+     * Refreshes the control panels that list a role or member that changed or is gone.
+     */
+    public static void onRoleOrMemberChanged(long id) {
+        for (AriVoiceChannel ariVC : channels.values()) {
+            if (!ariVC.getVisibility().mentions(id)) continue;
+            ariVC.invalidateVisibility();
+            ariVC.updateControlPanel();
+        }
+    }
+
+    /**
+     * Refreshes the control panels of channels a member who just joined the guild kept an override on.
+     */
+    public static void onMemberJoined(Member member) {
+        for (AriVoiceChannel ariVC : channels.values()) {
+            if (ariVC.getVoiceChannel().getPermissionOverride(member) == null) continue;
+            ariVC.invalidateVisibility();
+            ariVC.updateControlPanel();
+        }
+    }
+
     public static boolean isAfkChannel(AudioChannelUnion voiceChannel) {
         if (voiceChannel.getGuild().getAfkChannel() == null) return false;
         return voiceChannel.getGuild().getAfkChannel().getIdLong() == voiceChannel.getIdLong();
@@ -95,6 +211,10 @@ public class VoiceManager {
         return voiceChannel.getGuild().getSelfMember().hasPermission(voiceChannel, Permission.MESSAGE_SEND);
     }
 
+    public static boolean canSendMessage(VoiceChannel voiceChannel) {
+        return voiceChannel.getGuild().getSelfMember().hasPermission(voiceChannel, Permission.MESSAGE_SEND);
+    }
+
     public static boolean canManageChannel(AudioChannelUnion voiceChannel) {
         return voiceChannel.getGuild().getSelfMember().hasPermission(voiceChannel, Permission.MANAGE_CHANNEL);
     }